@@ -0,0 +1,160 @@
+package com.jstslearning.util;
+
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+import com.jstslearning.service.ContentLoader;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the JsLexer highlighting path with the single-regex highlighter it
+ * replaced, on a large document built from every lesson's example and solution
+ * code. Built and run by the benchmark profile:
+ * mvn -Pbenchmark -DskipTests verify (add -Djmh.args="-prof gc" for allocation per run)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+// The regex path recurses per character of long comments and strings; give it room
+@Fork(value = 1, jvmArgsAppend = "-Xss1g")
+public class HighlighterBenchmark {
+
+    // The previous highlighter: one named-group alternation over the whole document
+    private static final String[] KEYWORDS = new String[]{
+        "abstract", "any", "as", "async", "await", "boolean", "break", "case", "catch",
+        "class", "const", "continue", "debugger", "declare", "default", "delete", "do",
+        "else", "enum", "export", "extends", "false", "finally", "for", "from", "function",
+        "get", "if", "implements", "import", "in", "infer", "instanceof", "interface",
+        "is", "keyof", "let", "module", "namespace", "never", "new", "null", "number",
+        "of", "package", "private", "protected", "public", "readonly", "require", "return",
+        "set", "static", "string", "super", "switch", "symbol", "this", "throw", "true",
+        "try", "type", "typeof", "undefined", "unknown", "var", "void", "while", "with",
+        "yield"
+    };
+    private static final String[] BUILTINS = new String[]{
+        "Array", "ArrayBuffer", "Boolean", "Date", "Error", "Function", "JSON", "Map",
+        "Math", "Number", "Object", "Promise", "Proxy", "RegExp", "Set", "String",
+        "Symbol", "WeakMap", "WeakSet", "console", "document", "window", "setTimeout",
+        "setInterval", "clearTimeout", "clearInterval", "fetch", "localStorage",
+        "sessionStorage", "parseInt", "parseFloat", "isNaN", "isFinite"
+    };
+    private static final Pattern REGEX_PATTERN = Pattern.compile(
+            "(?<KEYWORD>\\b(" + String.join("|", KEYWORDS) + ")\\b)"
+            + "|(?<BUILTIN>\\b(" + String.join("|", BUILTINS) + ")\\b)"
+            + "|(?<PAREN>[()])"
+            + "|(?<BRACE>[{}])"
+            + "|(?<BRACKET>[\\[\\]])"
+            + "|(?<SEMICOLON>;)"
+            + "|(?<STRING>\"([^\"\\\\]|\\\\.)*\"|'([^'\\\\]|\\\\.)*'|`([^`\\\\]|\\\\.)*`)"
+            + "|(?<COMMENT>//[^\n]*|/\\*(.|\\R)*?\\*/)"
+            + "|(?<NUMBER>\\b\\d+\\.?\\d*\\b)"
+            + "|(?<OPERATOR>[+\\-*/%=<>!&|^~?:]+)"
+    );
+
+    @Param("20000")
+    private int minLines;
+
+    private String document;
+    private String[] documentLines;
+    private final JsLexer lexer = new JsLexer();
+
+    @Setup
+    public void buildDocument() {
+        document = buildDocument(minLines);
+        documentLines = document.split("\n", -1);
+    }
+
+    @Benchmark
+    public StyleSpans<Collection<String>> regexPrevious() {
+        return regexHighlighting(document);
+    }
+
+    @Benchmark
+    public StyleSpans<Collection<String>> jsLexerSpans() {
+        return SyntaxHighlighter.computeHighlighting(document);
+    }
+
+    @Benchmark
+    public int jsLexerTokensOnly() {
+        int state = JsLexer.STATE_CODE;
+        int tokens = 0;
+        for (String line : documentLines) {
+            state = lexer.lexLine(line, state);
+            tokens += lexer.getTokenCount();
+        }
+        return tokens;
+    }
+
+    /**
+     * Lesson code repeated until the document has at least minLines lines
+     */
+    private static String buildDocument(int minLines) {
+        ContentLoader contentLoader = new ContentLoader();
+        contentLoader.loadAllModules();
+        StringBuilder code = new StringBuilder();
+        for (Module module : contentLoader.getModules()) {
+            for (Lesson lesson : module.getLessons()) {
+                for (String part : new String[]{lesson.getCodeExample(), lesson.getSolution()}) {
+                    if (part != null && !part.isBlank()) {
+                        code.append(part).append('\n');
+                    }
+                }
+            }
+        }
+        if (code.length() == 0) {
+            code.append("const greeting = `Hello, ${name}!`; // fallback sample\n");
+        }
+        StringBuilder document = new StringBuilder();
+        int lines = 0;
+        int perCopy = code.toString().split("\n", -1).length - 1;
+        while (lines < minLines) {
+            document.append(code);
+            lines += perCopy;
+        }
+        return document.toString();
+    }
+
+    private static StyleSpans<Collection<String>> regexHighlighting(String text) {
+        Matcher matcher = REGEX_PATTERN.matcher(text);
+        int lastKwEnd = 0;
+        StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+        while (matcher.find()) {
+            String styleClass =
+                matcher.group("KEYWORD") != null ? "keyword" :
+                matcher.group("BUILTIN") != null ? "builtin" :
+                matcher.group("PAREN") != null ? "paren" :
+                matcher.group("BRACE") != null ? "brace" :
+                matcher.group("BRACKET") != null ? "bracket" :
+                matcher.group("SEMICOLON") != null ? "semicolon" :
+                matcher.group("STRING") != null ? "string" :
+                matcher.group("COMMENT") != null ? "comment" :
+                matcher.group("NUMBER") != null ? "number" :
+                matcher.group("OPERATOR") != null ? "operator" :
+                null;
+            spansBuilder.add(Collections.emptyList(), matcher.start() - lastKwEnd);
+            spansBuilder.add(Collections.singleton(styleClass), matcher.end() - matcher.start());
+            lastKwEnd = matcher.end();
+        }
+        spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
+        return spansBuilder.create();
+    }
+}
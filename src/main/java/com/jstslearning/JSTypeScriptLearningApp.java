@@ -3,12 +3,16 @@ package com.jstslearning;
 import com.jstslearning.controller.MainController;
 import com.jstslearning.service.ContentLoader;
 import com.jstslearning.service.ProgressTracker;
+import com.jstslearning.service.ProgressWriter;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.nio.file.Path;
+import java.util.Map;
+
 /**
  * Main entry point for the JavaScript/TypeScript Learning Platform
  */
@@ -16,16 +20,30 @@ public class JSTypeScriptLearningApp extends Application {
 
     private ContentLoader contentLoader;
     private ProgressTracker progressTracker;
+    private ProgressWriter progressWriter;
+    private MainController controller;
 
     @Override
     public void start(Stage primaryStage) throws Exception {
         // Initialize services
         contentLoader = new ContentLoader();
-        progressTracker = new ProgressTracker();
+        // Profile and database: --profile=name --db=path, else -Djstslearning.profile / -Djstslearning.db
+        Map<String, String> args = getParameters().getNamed();
+        progressTracker = new ProgressTracker(
+                Path.of(args.getOrDefault("db",
+                        System.getProperty("jstslearning.db", ProgressTracker.DEFAULT_DB_PATH))),
+                args.getOrDefault("profile",
+                        System.getProperty("jstslearning.profile", ProgressTracker.DEFAULT_USER_ID)));
+        System.out.println("Using profile " + progressTracker.getProfile());
+        progressWriter = new ProgressWriter(progressTracker);
 
-        // Load course content
+        // Load course content: only the module index unless -Djstslearning.content.lazy=false
         System.out.println("Loading course content...");
-        contentLoader.loadAllModules();
+        if (Boolean.parseBoolean(System.getProperty("jstslearning.content.lazy", "true"))) {
+            contentLoader.loadModuleIndex();
+        } else {
+            contentLoader.loadAllModules();
+        }
         System.out.println("Loaded " + contentLoader.getModules().size() + " modules");
 
         // Load FXML and set up the main window
@@ -33,8 +51,11 @@ public class JSTypeScriptLearningApp extends Application {
         Parent root = loader.load();
 
         // Inject services into controller
-        MainController controller = loader.getController();
-        controller.initialize(contentLoader, progressTracker);
+        controller = loader.getController();
+        controller.initialize(contentLoader, progressTracker, progressWriter);
+
+        // Dev mode (-Djstslearning.content.dir=...): pick up edits to module files without a restart
+        contentLoader.startWatching(controller::onContentChanged);
 
         // Set up the stage
         primaryStage.setTitle("JavaScript/TypeScript Learning Platform - From Zero to Full-Stack");
@@ -48,6 +69,18 @@ public class JSTypeScriptLearningApp extends Application {
     public void stop() {
         // Clean up resources if needed
         System.out.println("Application shutting down...");
+        if (controller != null) {
+            controller.shutdown();
+        }
+        if (contentLoader != null) {
+            contentLoader.stopWatching();
+        }
+        if (progressWriter != null) {
+            progressWriter.close(); // Writes any progress still waiting in the queue
+        }
+        if (progressTracker != null) {
+            progressTracker.close();
+        }
     }
 
     public static void main(String[] args) {
@@ -1,17 +1,36 @@
 package com.jstslearning.controller;
 
+import com.jstslearning.model.Challenge;
 import com.jstslearning.model.Lesson;
 import com.jstslearning.model.Module;
 import com.jstslearning.model.UserProgress;
+import com.jstslearning.service.ChallengeGrader;
 import com.jstslearning.service.CodeExecutor;
+import com.jstslearning.service.CompletionSet;
 import com.jstslearning.service.ContentLoader;
+import com.jstslearning.service.GradingCache;
+import com.jstslearning.service.ModuleChange;
 import com.jstslearning.service.ProgressTracker;
+import com.jstslearning.service.ProgressWriter;
+import com.jstslearning.service.SearchIndex;
+import com.jstslearning.service.TypeScriptExecutor;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.web.WebView;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Main controller for the application window
@@ -21,6 +40,9 @@ public class MainController {
     @FXML
     private TreeView<String> moduleTreeView;
 
+    @FXML
+    private TextField searchField;
+
     @FXML
     private BorderPane contentPane;
 
@@ -50,18 +72,33 @@ public class MainController {
 
     private ContentLoader contentLoader;
     private ProgressTracker progressTracker;
+    private ProgressWriter progressWriter; // Saves off the FX thread
     private CodeExecutor codeExecutor;
+    private TypeScriptExecutor typeScriptExecutor; // Runs TypeScript on codeExecutor's pool
+    private ChallengeGrader challengeGrader;
     private UserProgress userProgress;
+    private CompletionSet completions; // Completed lessons over the current content index
     private Lesson currentLesson;
+    private Runnable activeRunCanceller; // Non-null while code is running
+    private int runGeneration; // Output from older runs is ignored
+    private final Map<Integer, TreeItem<String>> moduleItems = new HashMap<>(); // Module id -> tree node
+    private Set<String> visibleLessonIds; // Current search filter, null when showing everything
+    private boolean updatingTree; // Selection changes while rebuilding nodes are not user clicks
+    private boolean searchPending; // A query is waiting for the search index to be built
 
     /**
      * Initialize the controller with services
      */
-    public void initialize(ContentLoader contentLoader, ProgressTracker progressTracker) {
+    public void initialize(ContentLoader contentLoader, ProgressTracker progressTracker,
+                           ProgressWriter progressWriter) {
         this.contentLoader = contentLoader;
         this.progressTracker = progressTracker;
+        this.progressWriter = progressWriter;
         this.codeExecutor = new CodeExecutor();
-        this.userProgress = progressTracker.loadProgress();
+        this.typeScriptExecutor = new TypeScriptExecutor(codeExecutor);
+        this.challengeGrader = new ChallengeGrader(codeExecutor, typeScriptExecutor, GradingCache.withDefaults());
+        this.userProgress = progressWriter.loadProgress(); // Logs events off the FX thread
+        this.completions = new CompletionSet(contentLoader.getContentIndex(), userProgress.getCompletedLessons());
 
         setupModuleTree();
         setupCodeEditor();
@@ -76,40 +113,165 @@ public class MainController {
         }
     }
 
+    /**
+     * Release execution resources when the application stops
+     */
+    public void shutdown() {
+        if (codeExecutor != null) {
+            codeExecutor.close();
+        }
+    }
+
     /**
      * Set up the module/lesson tree view
      */
     private void setupModuleTree() {
+        populateModuleTree(null);
+        moduleTreeView.setShowRoot(false);
+
+        // Handle lesson selection
+        moduleTreeView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            if (!updatingTree && newVal != null && newVal.isLeaf()) {
+                String lessonId = newVal.getValue();
+                findAndLoadLesson(lessonId);
+            }
+        });
+
+        setupSearch();
+    }
+
+    /**
+     * Fill the tree with every lesson, or only the given lesson ids (modules without matches are hidden)
+     */
+    private void populateModuleTree(Set<String> filter) {
+        this.visibleLessonIds = filter;
         TreeItem<String> root = new TreeItem<>("Course Content");
         root.setExpanded(true);
+        moduleItems.clear();
 
         for (Module module : contentLoader.getModules()) {
-            TreeItem<String> moduleItem = new TreeItem<>(module.getTitle());
+            TreeItem<String> moduleItem = new TreeItem<>(moduleLabel(module));
             moduleItem.setExpanded(true);
+            fillLessonItems(moduleItem, module);
+            moduleItems.put(module.getId(), moduleItem);
 
-            for (Lesson lesson : module.getLessons()) {
-                String lessonText = lesson.getId() + ": " + lesson.getTitle();
-                if (userProgress.isLessonComplete(lesson.getId())) {
-                    lessonText += " ✓";
-                }
-                TreeItem<String> lessonItem = new TreeItem<>(lessonText);
-                lessonItem.setValue(lesson.getId()); // Store lesson ID
-                moduleItem.getChildren().add(lessonItem);
+            if (visibleLessonIds == null || !moduleItem.getChildren().isEmpty()) {
+                root.getChildren().add(moduleItem);
             }
-
-            root.getChildren().add(moduleItem);
         }
 
+        updatingTree = true;
         moduleTreeView.setRoot(root);
-        moduleTreeView.setShowRoot(false);
+        updatingTree = false;
+    }
 
-        // Handle lesson selection
-        moduleTreeView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal != null && newVal.isLeaf()) {
-                String lessonId = newVal.getValue();
-                findAndLoadLesson(lessonId);
+    private void fillLessonItems(TreeItem<String> moduleItem, Module module) {
+        List<TreeItem<String>> lessonItems = new ArrayList<>();
+        List<Lesson> lessons = module.getLessons();
+        for (int i = 0; i < lessons.size(); i++) {
+            Lesson lesson = lessons.get(i);
+            if (visibleLessonIds != null && !visibleLessonIds.contains(lesson.getId())) {
+                continue;
             }
-        });
+            String lessonText = lesson.getId() + ": " + lesson.getTitle();
+            if (completions.contains(module.getId(), i)) {
+                lessonText += " ✓";
+            }
+            TreeItem<String> lessonItem = new TreeItem<>(lessonText);
+            lessonItem.setValue(lesson.getId()); // Store lesson ID
+            lessonItems.add(lessonItem);
+        }
+        moduleItem.getChildren().setAll(lessonItems);
+    }
+
+    /**
+     * Module title with its completed/total lesson count
+     */
+    private String moduleLabel(Module module) {
+        return module.getTitle() + " (" + completions.getCompletedCount(module.getId())
+                + "/" + completions.getLessonCount(module.getId()) + ")";
+    }
+
+    /**
+     * Apply a hot-reloaded module (dev mode): update only that module's tree
+     * node and re-render the current lesson if its content changed.
+     * May be called from any thread.
+     */
+    public void onContentChanged(ModuleChange change) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> onContentChanged(change));
+            return;
+        }
+        Module module = change.getModule();
+        TreeItem<String> moduleItem = moduleItems.get(module.getId());
+        completions = completions.rebind(contentLoader.getContentIndex(), userProgress.getCompletedLessons());
+
+        if (visibleLessonIds != null) {
+            // Matches may have changed; filter again once the index has caught up
+            contentLoader.getSearchIndex().thenRun(() -> Platform.runLater(() -> applySearch(searchField.getText())));
+        } else if (moduleItem == null) {
+            populateModuleTree(null); // A module file that was not there before
+        } else {
+            updatingTree = true;
+            if (change.isHeaderChanged() || change.isOrderChanged()) {
+                moduleItem.setValue(moduleLabel(module));
+            }
+            if (change.isStructureChanged()) {
+                fillLessonItems(moduleItem, module);
+            }
+            updatingTree = false;
+        }
+
+        if (currentLesson != null && change.getChangedLessonIds().contains(currentLesson.getId())) {
+            Lesson reloaded = contentLoader.getLesson(currentLesson.getId());
+            if (reloaded != null) {
+                // Only an untouched starter is replaced; the student's own code survives prose and test edits
+                Challenge previous = currentLesson.getChallenge();
+                String starter = previous != null ? previous.getStarterCode() : null;
+                loadLesson(reloaded, !codeEditor.getText().equals(starter != null ? starter : ""));
+            }
+        }
+        updateProgressDisplay();
+    }
+
+    /**
+     * Filter the tree as the user types. The search index is only built (or
+     * read from its cache) once the first query is typed, so startup does not
+     * pay for it; queries typed meanwhile run when it is ready.
+     */
+    private void setupSearch() {
+        searchField.setPromptText("Search lessons...");
+        searchField.textProperty().addListener((obs, oldText, newText) -> applySearch(newText));
+    }
+
+    private void applySearch(String query) {
+        if (query == null || query.isBlank()) {
+            populateModuleTree(null);
+            return;
+        }
+        CompletableFuture<SearchIndex> index = contentLoader.getSearchIndex();
+        if (!index.isDone()) {
+            if (!searchPending) {
+                searchPending = true;
+                index.whenComplete((ready, error) -> Platform.runLater(() -> {
+                    searchPending = false;
+                    if (error != null) {
+                        System.err.println("Search unavailable: " + error.getMessage());
+                        searchField.clear();
+                        searchField.setPromptText("Search unavailable");
+                        searchField.setDisable(true);
+                        return;
+                    }
+                    applySearch(searchField.getText());
+                }));
+            }
+            return;
+        }
+        Set<String> matches = new HashSet<>();
+        for (SearchIndex.Hit hit : contentLoader.search(query, contentLoader.getTotalLessonCount())) {
+            matches.add(hit.getLessonId());
+        }
+        populateModuleTree(matches);
     }
 
     /**
@@ -129,15 +291,9 @@ public class MainController {
      * Find and load a lesson by ID
      */
     private void findAndLoadLesson(String lessonId) {
-        for (Module module : contentLoader.getModules()) {
-            Optional<Lesson> lessonOpt = module.getLessons().stream()
-                    .filter(l -> l.getId().equals(lessonId))
-                    .findFirst();
-
-            if (lessonOpt.isPresent()) {
-                loadLesson(lessonOpt.get());
-                return;
-            }
+        Lesson lesson = contentLoader.getLesson(lessonId);
+        if (lesson != null) {
+            loadLesson(lesson);
         }
     }
 
@@ -145,9 +301,20 @@ public class MainController {
      * Load a lesson into the view
      */
     private void loadLesson(Lesson lesson) {
+        loadLesson(lesson, false);
+    }
+
+    /**
+     * Load a lesson into the view, leaving the editor alone when keepEditorCode
+     * is set (e.g. the current lesson was hot-reloaded while the student was typing)
+     */
+    private void loadLesson(Lesson lesson, boolean keepEditorCode) {
+        abandonActiveRun();
+        contentLoader.ensureLoaded(lesson);
+        contentLoader.prefetchNeighbours(lesson);
         this.currentLesson = lesson;
         userProgress.setCurrentLessonId(lesson.getId());
-        progressTracker.saveProgress(userProgress);
+        progressWriter.save(userProgress);
 
         // Build HTML content for the lesson
         StringBuilder html = new StringBuilder();
@@ -178,7 +345,10 @@ public class MainController {
             html.append("<p><em>Use the code editor below to complete the challenge.</em></p>");
 
             // Load starter code into editor
-            codeEditor.setText(lesson.getChallenge().getStarterCode());
+            if (!keepEditorCode) {
+                codeEditor.setText(lesson.getChallenge().getStarterCode());
+            }
+            prepareChallengeCode(lesson.getChallenge());
         }
 
         html.append("</body></html>");
@@ -188,39 +358,161 @@ public class MainController {
     }
 
     /**
-     * Run the code in the editor
+     * Have the engine parse the starter code and test inputs before the student runs anything
+     */
+    private void prepareChallengeCode(Challenge challenge) {
+        List<String> codes = new ArrayList<>();
+        if (challenge.getStarterCode() != null) {
+            codes.add(challenge.getStarterCode());
+        }
+        if (challenge.getTestCases() != null) {
+            for (Challenge.TestCase testCase : challenge.getTestCases()) {
+                if (testCase.getInput() != null) {
+                    codes.add(testCase.getInput());
+                }
+            }
+        }
+        codeExecutor.prepare(codes);
+    }
+
+    /**
+     * Run the code in the editor, or stop the run in progress
      */
     private void runCode() {
+        if (activeRunCanceller != null) {
+            activeRunCanceller.run();
+            return;
+        }
+
         String code = codeEditor.getText();
-        CodeExecutor.ExecutionResult result = codeExecutor.execute(code);
+        // Same choice the grader makes on Submit, so Run and Submit treat the code alike
+        CodeExecutor.AsyncExecution execution = isTypeScriptLesson(currentLesson)
+                ? typeScriptExecutor.executeAsync(code)
+                : codeExecutor.executeAsync(code);
+        int run = beginRun(execution::cancel);
+
+        outputArea.setStyle("-fx-font-family: 'monospace';");
+        outputArea.setText("▶ Running...\n");
+
+        // Fill the output area as console.log lines arrive
+        CompletableFuture<Void> streamed = streamOutput(execution.getOutput(), run);
+        execution.getResult()
+                .thenCombine(streamed, (result, ignored) -> result)
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+                    if (run != runGeneration) {
+                        return;
+                    }
+                    endRun();
+                    if (result != null && result.isSuccess()) {
+                        outputArea.setText("✓ Output:\n" + result.getOutput());
+                        outputArea.setStyle("-fx-control-inner-background: #d4edda; -fx-font-family: 'monospace';");
+                    } else {
+                        String message = result != null ? result.getError() : error.getMessage();
+                        outputArea.setText("✗ Error:\n" + message);
+                        outputArea.setStyle("-fx-control-inner-background: #f8d7da; -fx-font-family: 'monospace';");
+                    }
+                }));
+    }
 
-        if (result.isSuccess()) {
-            outputArea.setText("✓ Output:\n" + result.getOutput());
-            outputArea.setStyle("-fx-control-inner-background: #d4edda; -fx-font-family: 'monospace';");
-        } else {
-            outputArea.setText("✗ Error:\n" + result.getError());
-            outputArea.setStyle("-fx-control-inner-background: #f8d7da; -fx-font-family: 'monospace';");
-        }
+    /**
+     * Append published output chunks to the output area on the FX thread.
+     * Chunks are queued and appended in one go by a single pending runLater,
+     * so a chatty loop cannot flood the FX thread with one task per line.
+     */
+    private CompletableFuture<Void> streamOutput(Flow.Publisher<String> output, int run) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Queue<String> pending = new ConcurrentLinkedQueue<>();
+        AtomicBoolean drainScheduled = new AtomicBoolean();
+        Runnable drain = () -> {
+            drainScheduled.set(false);
+            StringBuilder text = new StringBuilder();
+            String chunk;
+            while ((chunk = pending.poll()) != null) {
+                text.append(chunk);
+            }
+            if (run == runGeneration && text.length() > 0) {
+                outputArea.appendText(text.toString());
+            }
+        };
+        output.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(String chunk) {
+                pending.add(chunk);
+                if (drainScheduled.compareAndSet(false, true)) {
+                    Platform.runLater(drain);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.complete(null);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Whether the lesson belongs to a TypeScript module; code outside any lesson runs as JavaScript
+     */
+    private boolean isTypeScriptLesson(Lesson lesson) {
+        Module module = lesson != null ? contentLoader.getModuleOf(lesson) : null;
+        return module != null && module.isTypeScript();
     }
 
     /**
      * Submit and validate the challenge
      */
     private void submitChallenge() {
-        if (currentLesson == null || currentLesson.getChallenge() == null) {
+        if (currentLesson == null || currentLesson.getChallenge() == null || activeRunCanceller != null) {
             return;
         }
 
+        Lesson lesson = currentLesson;
         String code = codeEditor.getText();
+        List<Challenge.TestCase> testCases = lesson.getChallenge().getTestCases();
+
+        CompletableFuture<ChallengeGrader.GradingReport> grading =
+                challengeGrader.gradeAsync(lesson.getId(), code, isTypeScriptLesson(lesson), testCases, false);
+        int run = beginRun(() -> grading.cancel(true));
+
+        outputArea.setStyle("-fx-font-family: 'monospace';");
+        outputArea.setText("▶ Running " + testCases.size() + " tests...\n");
+
+        grading.whenComplete((report, error) -> Platform.runLater(() -> {
+            if (run != runGeneration) {
+                return;
+            }
+            endRun();
+            if (report == null) {
+                String message = grading.isCancelled() ? "Run cancelled." : error.getMessage();
+                outputArea.setText("✗ Error:\n" + message);
+                outputArea.setStyle("-fx-control-inner-background: #f8d7da; -fx-font-family: 'monospace';");
+                return;
+            }
+            showGradingReport(lesson, report);
+        }));
+    }
+
+    /**
+     * Show per-test feedback and record completion when everything passed
+     */
+    private void showGradingReport(Lesson lesson, ChallengeGrader.GradingReport report) {
         boolean allTestsPassed = true;
         StringBuilder feedback = new StringBuilder("Test Results:\n\n");
 
-        for (var testCase : currentLesson.getChallenge().getTestCases()) {
-            String fullCode = code + "\n" + testCase.getInput();
-            CodeExecutor.ExecutionResult result = codeExecutor.execute(fullCode);
-
-            boolean passed = result.isSuccess() &&
-                    result.getOutput().trim().equals(testCase.getExpectedOutput().trim());
+        for (ChallengeGrader.TestCaseResult caseResult : report.getResults()) {
+            var testCase = caseResult.getTestCase();
+            boolean passed = caseResult.isPassed();
 
             feedback.append(passed ? "✓ " : "✗ ")
                     .append(testCase.getDescription())
@@ -228,15 +520,28 @@ public class MainController {
 
             if (!passed) {
                 allTestsPassed = false;
+                if (caseResult.isSkipped()) {
+                    continue;
+                }
                 feedback.append("  Expected: ").append(testCase.getExpectedOutput()).append("\n");
-                feedback.append("  Got: ").append(result.getOutput()).append("\n");
+                feedback.append("  Got: ").append(caseResult.getResult().getOutput()).append("\n");
             }
         }
 
         if (allTestsPassed) {
             feedback.append("\n🎉 All tests passed! Lesson complete!");
-            userProgress.markLessonComplete(currentLesson.getId());
-            progressTracker.saveProgress(userProgress);
+            Lesson next = contentLoader.getNextLesson(lesson);
+            if (next != null) {
+                feedback.append("\nNext up: ").append(next);
+            }
+            if (completions.complete(userProgress, lesson.getId())) {
+                Module module = contentLoader.getModuleOf(lesson);
+                TreeItem<String> moduleItem = module != null ? moduleItems.get(module.getId()) : null;
+                if (moduleItem != null) {
+                    moduleItem.setValue(moduleLabel(module));
+                }
+            }
+            progressWriter.save(userProgress);
             updateProgressDisplay();
             outputArea.setStyle("-fx-control-inner-background: #d4edda; -fx-font-family: 'monospace';");
         } else {
@@ -247,6 +552,33 @@ public class MainController {
         outputArea.setText(feedback.toString());
     }
 
+    /**
+     * Switch the Run button into a Stop button while code runs
+     */
+    private int beginRun(Runnable canceller) {
+        activeRunCanceller = canceller;
+        runCodeButton.setText("■ Stop");
+        submitButton.setDisable(true);
+        return ++runGeneration;
+    }
+
+    private void endRun() {
+        activeRunCanceller = null;
+        runCodeButton.setText("▶ Run Code");
+        submitButton.setDisable(false);
+    }
+
+    /**
+     * Stop any run in progress and ignore whatever it still reports
+     */
+    private void abandonActiveRun() {
+        if (activeRunCanceller != null) {
+            activeRunCanceller.run();
+            runGeneration++;
+            endRun();
+        }
+    }
+
     /**
      * Show the solution for the current challenge
      */
@@ -279,12 +611,10 @@ public class MainController {
      * Update the progress display
      */
     private void updateProgressDisplay() {
-        int totalLessons = contentLoader.getModules().stream()
-                .mapToInt(m -> m.getLessons().size())
-                .sum();
-        int completedLessons = userProgress.getCompletedLessonCount();
+        int totalLessons = completions.getLessonCount();
+        int completedLessons = completions.getCompletedCount();
 
-        double progress = totalLessons > 0 ? (double) completedLessons / totalLessons : 0;
+        double progress = completions.getProgress();
         progressBar.setProgress(progress);
         progressLabel.setText(String.format("Progress: %d/%d lessons completed (%.0f%%)",
                 completedLessons, totalLessons, progress * 100));
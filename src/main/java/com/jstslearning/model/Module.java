@@ -10,6 +10,7 @@ public class Module {
     private String title;
     private String description;
     private String goal;
+    private String language; // "typescript" for TypeScript modules; JavaScript when absent
     private List<Lesson> lessons;
 
     public Module() {
@@ -56,6 +57,21 @@ public class Module {
         this.goal = goal;
     }
 
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    /**
+     * Whether lesson code in this module is TypeScript, and so is stripped before it runs
+     */
+    public boolean isTypeScript() {
+        return "typescript".equalsIgnoreCase(language);
+    }
+
     public List<Lesson> getLessons() {
         return lessons;
     }
@@ -0,0 +1,132 @@
+package com.jstslearning.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One recorded step of a user's progress. Events are appended to the progress
+ * log as they happen; replaying them in order on top of a snapshot rebuilds
+ * the same UserProgress.
+ */
+public class ProgressEvent {
+
+    public enum Type {
+        LESSON_COMPLETED,
+        LESSON_SCORED,
+        QUIZ_COMPLETED
+    }
+
+    private long seq; // Position in the log, 0 until appended
+    private Type type;
+    private String itemId; // Lesson or quiz ID
+    private LocalDateTime at;
+    private int attempts; // LESSON_SCORED only
+    private int score; // LESSON_SCORED score, or QUIZ_COMPLETED percentage
+    private long timeSpent; // LESSON_SCORED only, in seconds
+    private boolean perfect; // LESSON_SCORED only
+
+    public ProgressEvent() {
+    }
+
+    public ProgressEvent(Type type, String itemId, LocalDateTime at) {
+        this.type = type;
+        this.itemId = itemId;
+        this.at = at;
+    }
+
+    public static ProgressEvent lessonCompleted(String lessonId, LocalDateTime at) {
+        return new ProgressEvent(Type.LESSON_COMPLETED, lessonId, at);
+    }
+
+    public static ProgressEvent lessonScored(LessonScore score, LocalDateTime at) {
+        ProgressEvent event = new ProgressEvent(Type.LESSON_SCORED, score.getLessonId(), at);
+        event.attempts = score.getAttempts();
+        event.score = score.getScore();
+        event.timeSpent = score.getTimeSpent();
+        event.perfect = score.isPerfect();
+        return event;
+    }
+
+    public static ProgressEvent quizCompleted(String quizId, int scorePercentage, LocalDateTime at) {
+        ProgressEvent event = new ProgressEvent(Type.QUIZ_COMPLETED, quizId, at);
+        event.score = scorePercentage;
+        return event;
+    }
+
+    /**
+     * The lesson score carried by a LESSON_SCORED event
+     */
+    public LessonScore toLessonScore() {
+        LessonScore lessonScore = new LessonScore(itemId);
+        lessonScore.setAttempts(attempts);
+        lessonScore.setScore(score);
+        lessonScore.setTimeSpent(timeSpent);
+        lessonScore.setCompletedAt(at);
+        lessonScore.setPerfect(perfect);
+        return lessonScore;
+    }
+
+    // Getters and setters
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    public void setAt(LocalDateTime at) {
+        this.at = at;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public long getTimeSpent() {
+        return timeSpent;
+    }
+
+    public void setTimeSpent(long timeSpent) {
+        this.timeSpent = timeSpent;
+    }
+
+    public boolean isPerfect() {
+        return perfect;
+    }
+
+    public void setPerfect(boolean perfect) {
+        this.perfect = perfect;
+    }
+}
@@ -3,6 +3,7 @@ package com.jstslearning.model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Enhanced user progress tracking with scores, streaks, and detailed analytics
@@ -25,6 +26,174 @@ public class UserProgress {
     private int totalPerfectLessons; // Lessons completed on first try with 100%
     private int totalXP; // Experience points
 
+    // Unsaved changes, collected by drainChanges()
+    private Map<String, LocalDateTime> completionTimes; // Lesson ID -> when it was first completed
+    private Map<String, LocalDateTime> quizCompletionTimes; // Quiz ID -> when it was first completed
+    private Set<String> unsavedCompletions;
+    private Set<String> unsavedScores; // Lesson IDs
+    private Set<String> unsavedQuizzes;
+    private boolean currentLessonChanged;
+    private boolean statsChanged; // XP, streaks, time spent, perfect lessons
+
+    // Progress log: mutations are reported as events; eventSeq is the last one reflected here
+    private Consumer<ProgressEvent> eventListener;
+    private long eventSeq;
+
+    /**
+     * Totals and streaks as of a drainChanges() call
+     */
+    public static class Stats {
+        private final LocalDateTime createdAt;
+        private final long totalTimeSpentSeconds;
+        private final int currentStreak;
+        private final int longestStreak;
+        private final LocalDate lastStudyDate;
+        private final int totalPerfectLessons;
+        private final int totalXP;
+
+        public Stats(LocalDateTime createdAt, long totalTimeSpentSeconds, int currentStreak, int longestStreak,
+                     LocalDate lastStudyDate, int totalPerfectLessons, int totalXP) {
+            this.createdAt = createdAt;
+            this.totalTimeSpentSeconds = totalTimeSpentSeconds;
+            this.currentStreak = currentStreak;
+            this.longestStreak = longestStreak;
+            this.lastStudyDate = lastStudyDate;
+            this.totalPerfectLessons = totalPerfectLessons;
+            this.totalXP = totalXP;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getTotalTimeSpentSeconds() {
+            return totalTimeSpentSeconds;
+        }
+
+        public int getCurrentStreak() {
+            return currentStreak;
+        }
+
+        public int getLongestStreak() {
+            return longestStreak;
+        }
+
+        public LocalDate getLastStudyDate() {
+            return lastStudyDate;
+        }
+
+        public int getTotalPerfectLessons() {
+            return totalPerfectLessons;
+        }
+
+        public int getTotalXP() {
+            return totalXP;
+        }
+    }
+
+    /**
+     * Changes made since the last drainChanges(), for incremental saves.
+     * A snapshot: it can be saved on another thread while this progress keeps changing.
+     */
+    public static class Changes {
+        private final boolean currentLessonChanged;
+        private final String currentLessonId; // Values at drain time
+        private final LocalDateTime lastAccessedAt;
+        private final Map<String, LocalDateTime> newCompletions; // Lesson ID -> completed at
+        private final Stats stats; // null when unchanged
+        private final Map<String, LessonScore> lessonScores; // Copies, by lesson ID
+        private final Map<String, Integer> quizScores; // Quiz ID -> score percentage
+        private final Map<String, LocalDateTime> quizCompletions; // Quiz ID -> first completed at
+        private final long eventSeq; // Last logged event these changes include
+
+        public Changes(boolean currentLessonChanged, String currentLessonId, LocalDateTime lastAccessedAt,
+                       Map<String, LocalDateTime> newCompletions, Stats stats,
+                       Map<String, LessonScore> lessonScores, Map<String, Integer> quizScores,
+                       Map<String, LocalDateTime> quizCompletions, long eventSeq) {
+            this.currentLessonChanged = currentLessonChanged;
+            this.currentLessonId = currentLessonId;
+            this.lastAccessedAt = lastAccessedAt;
+            this.newCompletions = newCompletions;
+            this.stats = stats;
+            this.lessonScores = lessonScores;
+            this.quizScores = quizScores;
+            this.quizCompletions = quizCompletions;
+            this.eventSeq = eventSeq;
+        }
+
+        /**
+         * These changes followed by later ones: later values win, first completion times are kept
+         */
+        public Changes mergedWith(Changes later) {
+            Map<String, LocalDateTime> completions = new LinkedHashMap<>(newCompletions);
+            later.newCompletions.forEach(completions::putIfAbsent);
+            Map<String, LessonScore> scores = new LinkedHashMap<>(lessonScores);
+            scores.putAll(later.lessonScores);
+            Map<String, Integer> quizzes = new LinkedHashMap<>(quizScores);
+            quizzes.putAll(later.quizScores);
+            Map<String, LocalDateTime> quizTimes = new LinkedHashMap<>(quizCompletions);
+            later.quizCompletions.forEach(quizTimes::putIfAbsent);
+            boolean lessonFromLater = later.currentLessonChanged;
+            return new Changes(currentLessonChanged || lessonFromLater,
+                    lessonFromLater ? later.currentLessonId : currentLessonId,
+                    lessonFromLater ? later.lastAccessedAt : lastAccessedAt,
+                    completions, later.stats != null ? later.stats : stats, scores, quizzes, quizTimes,
+                    Math.max(eventSeq, later.eventSeq));
+        }
+
+        /**
+         * The same changes, also covering logged events up to the given sequence number
+         */
+        public Changes withEventSeq(long seq) {
+            if (seq <= eventSeq) {
+                return this;
+            }
+            return new Changes(currentLessonChanged, currentLessonId, lastAccessedAt, newCompletions, stats,
+                    lessonScores, quizScores, quizCompletions, seq);
+        }
+
+        public boolean isCurrentLessonChanged() {
+            return currentLessonChanged;
+        }
+
+        public String getCurrentLessonId() {
+            return currentLessonId;
+        }
+
+        public LocalDateTime getLastAccessedAt() {
+            return lastAccessedAt;
+        }
+
+        public Map<String, LocalDateTime> getNewCompletions() {
+            return newCompletions;
+        }
+
+        public Stats getStats() {
+            return stats;
+        }
+
+        public Map<String, LessonScore> getLessonScores() {
+            return lessonScores;
+        }
+
+        public Map<String, Integer> getQuizScores() {
+            return quizScores;
+        }
+
+        public Map<String, LocalDateTime> getQuizCompletions() {
+            return quizCompletions;
+        }
+
+        public long getEventSeq() {
+            return eventSeq;
+        }
+
+        public boolean isEmpty() {
+            return !currentLessonChanged && newCompletions.isEmpty() && stats == null
+                    && lessonScores.isEmpty() && quizScores.isEmpty();
+        }
+    }
+
     public UserProgress() {
         this.completedLessons = new HashSet<>();
         this.lessonScores = new HashMap<>();
@@ -37,6 +206,11 @@ public class UserProgress {
         this.totalTimeSpentSeconds = 0;
         this.totalPerfectLessons = 0;
         this.totalXP = 0;
+        this.completionTimes = new HashMap<>();
+        this.quizCompletionTimes = new HashMap<>();
+        this.unsavedCompletions = new LinkedHashSet<>();
+        this.unsavedScores = new LinkedHashSet<>();
+        this.unsavedQuizzes = new LinkedHashSet<>();
     }
 
     public UserProgress(String userId) {
@@ -45,25 +219,142 @@ public class UserProgress {
     }
 
     public void markLessonComplete(String lessonId) {
-        completedLessons.add(lessonId);
-        updateStreak();
+        record(ProgressEvent.lessonCompleted(lessonId, LocalDateTime.now()));
     }
 
-    public void recordLessonScore(LessonScore score) {
-        lessonScores.put(score.getLessonId(), score);
-        if (score.isPerfect()) {
-            totalPerfectLessons++;
-            totalXP += 100; // Bonus for perfect score
-        } else {
-            totalXP += score.getScore() / 2; // XP based on score
+    /**
+     * Apply an event and report it to the listener, which logs it
+     */
+    private void record(ProgressEvent event) {
+        apply(event);
+        if (eventListener != null) {
+            eventListener.accept(event);
+            eventSeq = Math.max(eventSeq, event.getSeq());
         }
-        totalTimeSpentSeconds += score.getTimeSpent();
+    }
+
+    /**
+     * Apply a logged event without reporting it again, e.g. when replaying the log after a snapshot
+     */
+    public void replay(ProgressEvent event) {
+        apply(event);
+        eventSeq = Math.max(eventSeq, event.getSeq());
+    }
+
+    private void apply(ProgressEvent event) {
+        String id = event.getItemId();
+        switch (event.getType()) {
+            case LESSON_COMPLETED:
+                if (completedLessons.add(id)) {
+                    completionTimes.put(id, event.getAt());
+                    unsavedCompletions.add(id);
+                }
+                updateStreak(event.getAt().toLocalDate());
+                break;
+            case LESSON_SCORED:
+                LessonScore score = event.toLessonScore();
+                lessonScores.put(id, score);
+                unsavedScores.add(id);
+                statsChanged = true;
+                if (score.isPerfect()) {
+                    totalPerfectLessons++;
+                    totalXP += 100; // Bonus for perfect score
+                } else {
+                    totalXP += score.getScore() / 2; // XP based on score
+                }
+                totalTimeSpentSeconds += score.getTimeSpent();
+                break;
+            case QUIZ_COMPLETED:
+                completedQuizzes.add(id);
+                quizScores.put(id, event.getScore());
+                quizCompletionTimes.putIfAbsent(id, event.getAt());
+                unsavedQuizzes.add(id);
+                statsChanged = true;
+                totalXP += event.getScore(); // XP equals quiz score
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * When the lesson was first completed, or null if unknown
+     */
+    public LocalDateTime getCompletedAt(String lessonId) {
+        return completionTimes.get(lessonId);
+    }
+
+    /**
+     * When the quiz was first completed, or null if unknown
+     */
+    public LocalDateTime getQuizCompletedAt(String quizId) {
+        return quizCompletionTimes.get(quizId);
+    }
+
+    /**
+     * Take the changes made since the last call (completions, scores, quiz
+     * results, totals and the current lesson) and start tracking afresh.
+     * Loading through the setters does not count as a change.
+     */
+    public Changes drainChanges() {
+        Map<String, LocalDateTime> completions = new LinkedHashMap<>();
+        for (String lessonId : unsavedCompletions) {
+            completions.put(lessonId, completionTimes.get(lessonId));
+        }
+        Map<String, LessonScore> scores = new LinkedHashMap<>();
+        for (String lessonId : unsavedScores) {
+            LessonScore score = lessonScores.get(lessonId);
+            if (score != null) {
+                scores.put(lessonId, copyOf(score));
+            }
+        }
+        Map<String, Integer> quizzes = new LinkedHashMap<>();
+        Map<String, LocalDateTime> quizTimes = new LinkedHashMap<>();
+        for (String quizId : unsavedQuizzes) {
+            quizzes.put(quizId, quizScores.get(quizId));
+            quizTimes.put(quizId, quizCompletionTimes.get(quizId));
+        }
+        Stats stats = statsChanged
+                ? new Stats(createdAt, totalTimeSpentSeconds, currentStreak, longestStreak,
+                        lastStudyDate, totalPerfectLessons, totalXP)
+                : null;
+        Changes changes = new Changes(currentLessonChanged, currentLessonId, lastAccessedAt, completions,
+                stats, scores, quizzes, quizTimes, eventSeq);
+        unsavedCompletions.clear();
+        unsavedScores.clear();
+        unsavedQuizzes.clear();
+        currentLessonChanged = false;
+        statsChanged = false;
+        return changes;
+    }
+
+    private static LessonScore copyOf(LessonScore score) {
+        LessonScore copy = new LessonScore(score.getLessonId());
+        copy.setAttempts(score.getAttempts());
+        copy.setScore(score.getScore());
+        copy.setTimeSpent(score.getTimeSpent());
+        copy.setCompletedAt(score.getCompletedAt());
+        copy.setPerfect(score.isPerfect());
+        return copy;
+    }
+
+    /**
+     * Put back changes that could not be saved, so the next drain includes them again
+     */
+    public void restoreChanges(Changes changes) {
+        unsavedCompletions.addAll(changes.getNewCompletions().keySet());
+        unsavedScores.addAll(changes.getLessonScores().keySet());
+        unsavedQuizzes.addAll(changes.getQuizScores().keySet());
+        statsChanged |= changes.getStats() != null;
+        currentLessonChanged |= changes.isCurrentLessonChanged();
+    }
+
+    public void recordLessonScore(LessonScore score) {
+        record(ProgressEvent.lessonScored(score, LocalDateTime.now()));
     }
 
     public void markQuizComplete(String quizId, int scorePercentage) {
-        completedQuizzes.add(quizId);
-        quizScores.put(quizId, scorePercentage);
-        totalXP += scorePercentage; // XP equals quiz score
+        record(ProgressEvent.quizCompleted(quizId, scorePercentage, LocalDateTime.now()));
     }
 
     public boolean isLessonComplete(String lessonId) {
@@ -89,10 +380,9 @@ public class UserProgress {
     }
 
     /**
-     * Update study streak
+     * Update study streak for a day of study
      */
-    private void updateStreak() {
-        LocalDate today = LocalDate.now();
+    private void updateStreak(LocalDate today) {
 
         if (lastStudyDate == null) {
             currentStreak = 1;
@@ -109,6 +399,7 @@ public class UserProgress {
             currentStreak = 1;
             lastStudyDate = today;
         }
+        statsChanged = true;
 
         if (currentStreak > longestStreak) {
             longestStreak = currentStreak;
@@ -129,6 +420,24 @@ public class UserProgress {
         return 1000 - (totalXP % 1000);
     }
 
+    /**
+     * Receives each new event as it is recorded, and may set its log sequence number
+     */
+    public void setEventListener(Consumer<ProgressEvent> eventListener) {
+        this.eventListener = eventListener;
+    }
+
+    public long getEventSeq() {
+        return eventSeq;
+    }
+
+    /**
+     * The log position of the snapshot this progress was loaded from
+     */
+    public void setEventSeq(long eventSeq) {
+        this.eventSeq = eventSeq;
+    }
+
     // Getters and setters
     public String getUserId() {
         return userId;
@@ -146,6 +455,10 @@ public class UserProgress {
         this.completedLessons = completedLessons;
     }
 
+    public void setCompletionTimes(Map<String, LocalDateTime> completionTimes) {
+        this.completionTimes = completionTimes;
+    }
+
     public Map<String, LessonScore> getLessonScores() {
         return lessonScores;
     }
@@ -170,6 +483,10 @@ public class UserProgress {
         this.quizScores = quizScores;
     }
 
+    public void setQuizCompletionTimes(Map<String, LocalDateTime> quizCompletionTimes) {
+        this.quizCompletionTimes = quizCompletionTimes;
+    }
+
     public String getCurrentLessonId() {
         return currentLessonId;
     }
@@ -177,6 +494,15 @@ public class UserProgress {
     public void setCurrentLessonId(String currentLessonId) {
         this.currentLessonId = currentLessonId;
         this.lastAccessedAt = LocalDateTime.now();
+        this.currentLessonChanged = true;
+    }
+
+    /**
+     * Restore the current lesson as loaded from storage, without marking it unsaved
+     */
+    public void restoreCurrentLesson(String currentLessonId, LocalDateTime lastAccessedAt) {
+        this.currentLessonId = currentLessonId;
+        this.lastAccessedAt = lastAccessedAt;
     }
 
     public LocalDateTime getLastAccessedAt() {
@@ -0,0 +1,224 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.Challenge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Grades challenge submissions by running test cases in parallel,
+ * each in its own isolated context from the executor's pool.
+ * Submissions to TypeScript lessons are stripped to JavaScript first.
+ * The app and the ContentVerifier both grade through here.
+ */
+public class ChallengeGrader {
+
+    /**
+     * Outcome of a single test case
+     */
+    public static class TestCaseResult {
+        private final int index;
+        private final Challenge.TestCase testCase;
+        private final CodeExecutor.ExecutionResult result; // null when skipped
+        private final boolean passed;
+
+        public TestCaseResult(int index, Challenge.TestCase testCase,
+                              CodeExecutor.ExecutionResult result, boolean passed) {
+            this.index = index;
+            this.testCase = testCase;
+            this.result = result;
+            this.passed = passed;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Challenge.TestCase getTestCase() {
+            return testCase;
+        }
+
+        public CodeExecutor.ExecutionResult getResult() {
+            return result;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        /**
+         * Whether the case was never run because an earlier case already failed
+         */
+        public boolean isSkipped() {
+            return result == null;
+        }
+    }
+
+    /**
+     * Per-case results of a submission, in the challenge's original order
+     */
+    public static class GradingReport {
+        private final List<TestCaseResult> results;
+
+        public GradingReport(List<TestCaseResult> results) {
+            this.results = Collections.unmodifiableList(results);
+        }
+
+        public List<TestCaseResult> getResults() {
+            return results;
+        }
+
+        public boolean isAllPassed() {
+            return results.stream().allMatch(TestCaseResult::isPassed);
+        }
+
+        public long getPassedCount() {
+            return results.stream().filter(TestCaseResult::isPassed).count();
+        }
+    }
+
+    private final CodeExecutor executor;
+    private final TypeScriptExecutor typeScriptExecutor; // Shares the executor's context pool
+    private final GradingCache cache; // null disables memoization
+
+    public ChallengeGrader(CodeExecutor executor) {
+        this(executor, null);
+    }
+
+    public ChallengeGrader(CodeExecutor executor, GradingCache cache) {
+        this(executor, new TypeScriptExecutor(executor), cache);
+    }
+
+    /**
+     * Share a TypeScriptExecutor (and its transpile cache) with other callers, e.g. the Run button
+     */
+    public ChallengeGrader(CodeExecutor executor, TypeScriptExecutor typeScriptExecutor, GradingCache cache) {
+        this.executor = executor;
+        this.typeScriptExecutor = typeScriptExecutor;
+        this.cache = cache;
+    }
+
+    /**
+     * Run every test case against the submitted JavaScript and wait for the report.
+     * With stopOnFirstFailure, cases after the first failing one are skipped.
+     */
+    public GradingReport grade(String code, List<Challenge.TestCase> testCases, boolean stopOnFirstFailure) {
+        return grade(code, false, testCases, stopOnFirstFailure);
+    }
+
+    /**
+     * Run every test case against the submitted code, stripping its types first
+     * when it is TypeScript, and wait for the report
+     */
+    public GradingReport grade(String code, boolean typeScript, List<Challenge.TestCase> testCases,
+                               boolean stopOnFirstFailure) {
+        return gradeAsync(null, code, typeScript, testCases, stopOnFirstFailure).join();
+    }
+
+    /**
+     * Fan the test cases out over the executor's runner threads, each in its
+     * own pooled context. Cancelling the returned future cancels every run.
+     */
+    public CompletableFuture<GradingReport> gradeAsync(String code, List<Challenge.TestCase> testCases,
+                                                       boolean stopOnFirstFailure) {
+        return gradeAsync(null, code, false, testCases, stopOnFirstFailure);
+    }
+
+    /**
+     * Grade a lesson's challenge; typeScript comes from the lesson's module, never
+     * from the code itself. Outcomes of unchanged, deterministic code are served
+     * from the grading cache instead of being run again.
+     */
+    public CompletableFuture<GradingReport> gradeAsync(String lessonId, String code, boolean typeScript,
+                                                       List<Challenge.TestCase> testCases,
+                                                       boolean stopOnFirstFailure) {
+        int count = testCases.size();
+        AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        List<CodeExecutor.AsyncExecution> runs = new ArrayList<>(count);
+        List<CompletableFuture<TestCaseResult>> futures = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Challenge.TestCase testCase = testCases.get(i);
+            String key = cache != null && lessonId != null ? cache.key(lessonId, i, code, testCase) : null;
+            GradingCache.Outcome cached = key != null ? cache.get(key) : null;
+            if (cached != null) {
+                runs.add(null);
+                futures.add(CompletableFuture.completedFuture(
+                        new TestCaseResult(i, testCase, cached.toExecutionResult(), cached.isPassed())));
+                continue;
+            }
+            CodeExecutor.AsyncExecution run = typeScript
+                    ? typeScriptExecutor.executeAsync(code, testCase.getInput())
+                    : executor.executeAsync(code, testCase.getInput());
+            runs.add(run);
+            int index = i;
+            futures.add(run.getResult().thenApply(result -> {
+                TestCaseResult caseResult = toResult(index, testCase, result);
+                if (key != null && !run.isCancelled()
+                        && result.getLimitExceeded() != CodeExecutor.ExecutionResult.LimitType.TIME) {
+                    // Timeouts depend on machine load, so only deterministic outcomes are kept
+                    cache.put(key, result, caseResult.isPassed());
+                }
+                return caseResult;
+            }));
+        }
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.set(i, futures.get(i).thenApply(caseResult -> {
+                if (stopOnFirstFailure && !caseResult.isPassed()
+                        && firstFailure.accumulateAndGet(index, Math::min) == index) {
+                    // Later cases no longer matter: stop them whether queued or running
+                    for (int later = index + 1; later < count; later++) {
+                        if (runs.get(later) != null) {
+                            runs.get(later).cancel();
+                        }
+                    }
+                }
+                return caseResult;
+            }));
+        }
+
+        CompletableFuture<GradingReport> report = CompletableFuture
+                .allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<TestCaseResult> results = new ArrayList<>(count);
+                    for (CompletableFuture<TestCaseResult> future : futures) {
+                        TestCaseResult result = future.join();
+                        if (stopOnFirstFailure && result.getIndex() > firstFailure.get()) {
+                            // Cancelled or finished after an earlier case failed: report as skipped for a stable result
+                            result = new TestCaseResult(result.getIndex(), result.getTestCase(), null, false);
+                        }
+                        results.add(result);
+                    }
+                    return new GradingReport(results);
+                });
+        report.whenComplete((result, error) -> {
+            if (report.isCancelled()) {
+                runs.stream().filter(run -> run != null).forEach(CodeExecutor.AsyncExecution::cancel);
+            }
+        });
+        return report;
+    }
+
+    /**
+     * Memoized results, or null when caching is disabled
+     */
+    public GradingCache getCache() {
+        return cache;
+    }
+
+    private TestCaseResult toResult(int index, Challenge.TestCase testCase, CodeExecutor.ExecutionResult result) {
+        return new TestCaseResult(index, testCase, result, isPassing(testCase, result));
+    }
+
+    /**
+     * A run passes when it succeeded and printed the expected output (ignoring surrounding whitespace)
+     */
+    public static boolean isPassing(Challenge.TestCase testCase, CodeExecutor.ExecutionResult result) {
+        return result.isSuccess() &&
+                result.getOutput().trim().equals(testCase.getExpectedOutput().trim());
+    }
+}
@@ -1,30 +1,134 @@
 package com.jstslearning.service;
 
-import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.SourceSection;
 import org.graalvm.polyglot.Value;
 
 import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
- * Executes JavaScript code using GraalVM's JavaScript engine
+ * Executes JavaScript code using GraalVM's JavaScript engine.
+ * Runs are served from a {@link ContextPool} backed by one shared engine.
  */
 public class CodeExecutor {
 
+    // Custom console.log implementation installed in every context
+    private static final String CONSOLE_SETUP = """
+        var console = {
+            log: function(...args) {
+                print(args.join(' '));
+            }
+        };
+    """;
+
+    private final ContextPool pool;
+    private final ScheduledExecutorService watchdog;
+    private final ExecutorService runner;
+
+    public CodeExecutor() {
+        this(ContextPool.Config.defaults(), ExecutionLimits.defaults());
+    }
+
+    public CodeExecutor(ContextPool.Config config, ExecutionLimits limits) {
+        this.pool = new ContextPool(config, limits, CONSOLE_SETUP);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "js-execution-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Dedicated runner threads keep student code off the JavaFX application thread
+        AtomicInteger runnerCount = new AtomicInteger();
+        this.runner = Executors.newFixedThreadPool(config.getPoolSize(), r -> {
+            Thread thread = new Thread(r, "js-runner-" + runnerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     /**
      * Result of code execution
      */
     public static class ExecutionResult {
+
+        /**
+         * Which execution limit stopped a run
+         */
+        public enum LimitType {
+            TIME,       // Ran past the wall-clock budget
+            STATEMENTS, // Executed too many statements
+            OUTPUT      // Printed more than the output cap
+        }
+
+        /**
+         * Where in the evaluated code an error was raised
+         */
+        public static class ErrorLocation {
+            private final int part; // 0 = the code, 1 = the test harness
+            private final int charIndex;
+            private final int line; // 1-based
+            private final int column; // 1-based
+
+            public ErrorLocation(int part, int charIndex, int line, int column) {
+                this.part = part;
+                this.charIndex = charIndex;
+                this.line = line;
+                this.column = column;
+            }
+
+            public int getPart() {
+                return part;
+            }
+
+            public int getCharIndex() {
+                return charIndex;
+            }
+
+            public int getLine() {
+                return line;
+            }
+
+            public int getColumn() {
+                return column;
+            }
+        }
+
         private final boolean success;
         private final String output;
         private final String error;
         private final Value returnValue;
+        private final LimitType limitExceeded;
+        private final ErrorLocation errorLocation; // null when unknown
 
         public ExecutionResult(boolean success, String output, String error, Value returnValue) {
+            this(success, output, error, returnValue, null);
+        }
+
+        public ExecutionResult(boolean success, String output, String error, Value returnValue,
+                               LimitType limitExceeded) {
+            this(success, output, error, returnValue, limitExceeded, null);
+        }
+
+        public ExecutionResult(boolean success, String output, String error, Value returnValue,
+                               LimitType limitExceeded, ErrorLocation errorLocation) {
             this.success = success;
             this.output = output;
             this.error = error;
             this.returnValue = returnValue;
+            this.limitExceeded = limitExceeded;
+            this.errorLocation = errorLocation;
         }
 
         public boolean isSuccess() {
@@ -42,42 +146,291 @@ public class CodeExecutor {
         public Value getReturnValue() {
             return returnValue;
         }
+
+        /**
+         * The limit that stopped the run, or null if it finished on its own
+         */
+        public LimitType getLimitExceeded() {
+            return limitExceeded;
+        }
+
+        public boolean isLimitExceeded() {
+            return limitExceeded != null;
+        }
+
+        /**
+         * Where the error was raised, or null when there is no error or no location
+         */
+        public ErrorLocation getErrorLocation() {
+            return errorLocation;
+        }
+    }
+
+    /**
+     * A run in progress on the executor's runner threads. Output lines are
+     * published as they are printed; the result completes when the run ends.
+     */
+    public static class AsyncExecution {
+        private final CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+        private final SubmissionPublisher<String> output = new SubmissionPublisher<>();
+        private final Consumer<Runnable> canceller;
+        private ContextPool.PooledContext running;
+        private long lease;
+        private boolean cancelled;
+
+        private AsyncExecution(Consumer<Runnable> canceller) {
+            this.canceller = canceller;
+        }
+
+        /**
+         * A run that ended before it started, e.g. code that could not be transpiled
+         */
+        public static AsyncExecution completed(ExecutionResult result) {
+            AsyncExecution execution = new AsyncExecution(task -> { });
+            execution.output.close();
+            execution.result.complete(result);
+            return execution;
+        }
+
+        public CompletableFuture<ExecutionResult> getResult() {
+            return result;
+        }
+
+        /**
+         * Output chunks (whole console lines) in the order they were printed
+         */
+        public Flow.Publisher<String> getOutput() {
+            return output;
+        }
+
+        /**
+         * Stop the run; it completes with a cancelled result
+         */
+        public void cancel() {
+            ContextPool.PooledContext target;
+            long targetLease;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                target = running;
+                targetLease = lease;
+            }
+            if (target != null) {
+                canceller.accept(() -> target.cancel(targetLease, null));
+            }
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private synchronized boolean attach(ContextPool.PooledContext pooled) {
+            if (cancelled) {
+                return false;
+            }
+            running = pooled;
+            lease = pooled.getLease();
+            return true;
+        }
+
+        private synchronized void detach() {
+            running = null;
+        }
     }
 
     /**
      * Execute JavaScript code and capture output
      */
     public ExecutionResult execute(String code) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        try (Context context = Context.newBuilder("js")
-                .allowAllAccess(false) // Security: restrict file system access
-                .out(outputStream)
-                .err(outputStream)
-                .build()) {
-
-            // Add a custom console.log implementation
-            String consoleSetup = """
-                var console = {
-                    log: function(...args) {
-                        print(args.join(' '));
-                    }
-                };
-            """;
-            context.eval("js", consoleSetup);
+        return execute(new String[]{code});
+    }
 
+    /**
+     * Execute student code followed by a test harness (e.g. a test case input).
+     * Each part is a separately cached Source, so the same student code run
+     * against many test cases is parsed once.
+     */
+    public ExecutionResult execute(String code, String harness) {
+        if (harness == null || harness.isBlank()) {
+            return execute(code);
+        }
+        return execute(new String[]{code, harness});
+    }
+
+    /**
+     * Run JavaScript code on a runner thread, streaming its output
+     */
+    public AsyncExecution executeAsync(String code) {
+        return submit(new String[]{code});
+    }
+
+    /**
+     * Run student code followed by a test harness on a runner thread
+     */
+    public AsyncExecution executeAsync(String code, String harness) {
+        if (harness == null || harness.isBlank()) {
+            return executeAsync(code);
+        }
+        return submit(new String[]{code, harness});
+    }
+
+    /**
+     * Run code parts on a runner thread; finisher rewrites the result before it completes
+     * (e.g. mapping error positions back to the TypeScript source)
+     */
+    AsyncExecution executeAsync(String code, String harness, UnaryOperator<ExecutionResult> finisher) {
+        return submit(harness == null || harness.isBlank() ? new String[]{code} : new String[]{code, harness},
+                finisher);
+    }
+
+    private AsyncExecution submit(String[] parts) {
+        return submit(parts, UnaryOperator.identity());
+    }
+
+    private AsyncExecution submit(String[] parts, UnaryOperator<ExecutionResult> finisher) {
+        // Cancelling from the UI closes the context on the watchdog thread, never on the caller's
+        AsyncExecution execution = new AsyncExecution(watchdog::execute);
+        try {
+            runner.execute(() -> {
+                try {
+                    execution.result.complete(finisher.apply(run(parts, execution)));
+                } catch (RuntimeException e) {
+                    execution.result.completeExceptionally(e);
+                } finally {
+                    execution.output.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            execution.output.close();
+            execution.result.completeExceptionally(e);
+        }
+        return execution;
+    }
+
+    /**
+     * Parse code in the background so a later run finds it already compiled
+     */
+    public void prepare(List<String> codes) {
+        pool.prepare(codes);
+    }
+
+    private ExecutionResult execute(String[] parts) {
+        return run(parts, null);
+    }
+
+    /**
+     * The part and position a guest error points into, or null if it is outside the given parts
+     */
+    private ExecutionResult.ErrorLocation errorLocation(PolyglotException e, String[] parts) {
+        SourceSection section = e.getSourceLocation();
+        if (section == null || !section.isAvailable()) {
+            return null;
+        }
+        for (int k = 0; k < parts.length; k++) {
+            // Parts are evaluated as cached Sources, so this is a lookup of the Source that ran
+            if (section.getSource().equals(pool.getSourceCache().get(parts[k]))) {
+                return new ExecutionResult.ErrorLocation(k, section.getCharIndex(),
+                        section.getStartLine(), section.getStartColumn());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run code parts in a pooled context; execution is non-null for async runs
+     */
+    private ExecutionResult run(String[] parts, AsyncExecution execution) {
+        if (execution != null && execution.isCancelled()) {
+            return cancelledResult("");
+        }
+        ContextPool.PooledContext pooled;
+        try {
+            pooled = pool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ExecutionResult(false, "", "Execution interrupted", null);
+        }
+
+        ByteArrayOutputStream outputStream = pooled.getOutput();
+        ExecutionLimits limits = pool.getLimits();
+
+        if (execution != null) {
+            if (!execution.attach(pooled)) {
+                pool.release(pooled);
+                return cancelledResult("");
+            }
+            pooled.setOutputListener(execution.output::submit);
+        }
+
+        // Watchdog: cancel the context if it overruns its time budget or output cap
+        long lease = pooled.getLease();
+        pooled.setOverflowHandler(() -> watchdog.execute(() -> pooled.cancel(lease, ExecutionResult.LimitType.OUTPUT)));
+        ScheduledFuture<?> timeout = watchdog.schedule(() -> pooled.cancel(lease, ExecutionResult.LimitType.TIME),
+                limits.getTimeLimitMillis(), TimeUnit.MILLISECONDS);
+        try {
             // Execute the user's code
-            Value result = context.eval("js", code);
+            Value result = pool.eval(pooled, parts);
+            timeout.cancel(false);
+
+            if (pooled.getLimitExceeded() == ExecutionResult.LimitType.OUTPUT) {
+                // Finished before the watchdog got to it, but the output was still truncated
+                return new ExecutionResult(false, outputStream.toString(),
+                        describeLimit(ExecutionResult.LimitType.OUTPUT, limits), null, ExecutionResult.LimitType.OUTPUT);
+            }
 
             String output = outputStream.toString().trim();
             return new ExecutionResult(true, output, null, result);
 
         } catch (PolyglotException e) {
+            timeout.cancel(false);
+            if (execution != null && execution.isCancelled()) {
+                return cancelledResult(outputStream.toString());
+            }
+            ExecutionResult.LimitType limit = pooled.getLimitExceeded();
+            if (limit == null && (e.isResourceExhausted() || e.isCancelled())) {
+                // Statement limits are enforced by GraalVM itself, which cancels the context
+                limit = ExecutionResult.LimitType.STATEMENTS;
+            }
+            if (limit != null) {
+                return new ExecutionResult(false, outputStream.toString(), describeLimit(limit, limits), null, limit);
+            }
             String errorMsg = e.getMessage();
-            return new ExecutionResult(false, outputStream.toString(), errorMsg, null);
+            return new ExecutionResult(false, outputStream.toString(), errorMsg, null, null, errorLocation(e, parts));
         } catch (Exception e) {
+            timeout.cancel(false);
             return new ExecutionResult(false, outputStream.toString(),
                 "Unexpected error: " + e.getMessage(), null);
+        } finally {
+            if (execution != null) {
+                pooled.flushOutputListener();
+                execution.detach();
+            }
+            pool.release(pooled);
+        }
+    }
+
+    private static ExecutionResult cancelledResult(String output) {
+        return new ExecutionResult(false, output, "Run cancelled.", null);
+    }
+
+    /**
+     * Student-facing explanation of a limit that stopped their code
+     */
+    private static String describeLimit(ExecutionResult.LimitType limit, ExecutionLimits limits) {
+        switch (limit) {
+            case TIME:
+                return "Time limit exceeded: your code ran longer than "
+                        + limits.getTimeLimitMillis() + " ms. Check for an infinite loop.";
+            case STATEMENTS:
+                return "Step limit exceeded: your code ran more than "
+                        + limits.getStatementLimit() + " statements. Check for an infinite loop.";
+            case OUTPUT:
+                return "Output limit exceeded: your code printed more than "
+                        + limits.getMaxOutputBytes() + " bytes.";
+            default:
+                return "Execution limit exceeded";
         }
     }
 
@@ -95,4 +448,20 @@ public class CodeExecutor {
 
         return actualOutput.equals(expected);
     }
+
+    /**
+     * Number of runs that can execute concurrently on this executor
+     */
+    public int getParallelism() {
+        return pool.getConfig().getPoolSize();
+    }
+
+    /**
+     * Close the context pool and its shared engine
+     */
+    public void close() {
+        runner.shutdownNow();
+        watchdog.shutdownNow();
+        pool.close();
+    }
 }
@@ -0,0 +1,150 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+import com.jstslearning.model.UserProgress;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * View cache over UserProgress's completed lessons for the progress display:
+ * one bit per lesson ordinal of a ContentIndex, with per-module counters kept
+ * up to date on every add, so course and module progress are O(1).
+ * UserProgress stays the record (it is what gets saved); complete() marks a
+ * lesson in both. Ids that are not in the course (e.g. completions of a
+ * removed lesson) are ignored here.
+ * Bound to one index: after a reload, rebind() keeps the bits while the
+ * lessons' order is unchanged and rebuilds them from the ids otherwise.
+ * Ordinals are never written to disk: adding a lesson shifts every later one,
+ * so the saved record stays keyed by lesson id.
+ */
+public class CompletionSet {
+    private final ContentIndex index;
+    private final BitSet completed = new BitSet();
+    private final Map<Integer, Integer> slotsByModuleId = new HashMap<>(); // Module id -> slot below
+    private final int[] moduleStarts; // Slot -> ordinal of the module's first lesson
+    private final int[] moduleSizes; // Slot -> lesson count
+    private final int[] moduleCompleted; // Slot -> completed lessons
+    private final int[] slotOfOrdinal; // Lesson ordinal -> its module's slot
+    private final int layoutHash; // Lesson ids in course order; equal hashes share ordinals
+    private int completedCount;
+
+    public CompletionSet(ContentIndex index, Collection<String> completedLessonIds) {
+        this.index = index;
+        List<Module> modules = index.getModules();
+        moduleStarts = new int[modules.size()];
+        moduleSizes = new int[modules.size()];
+        moduleCompleted = new int[modules.size()];
+        slotOfOrdinal = new int[index.getTotalLessonCount()];
+
+        int ordinal = 0;
+        int hash = 1;
+        for (int slot = 0; slot < modules.size(); slot++) {
+            Module module = modules.get(slot);
+            slotsByModuleId.put(module.getId(), slot);
+            moduleStarts[slot] = ordinal;
+            List<Lesson> lessons = module.getLessons() != null ? module.getLessons() : List.of();
+            moduleSizes[slot] = lessons.size();
+            for (Lesson lesson : lessons) {
+                hash = 31 * hash + lesson.getId().hashCode();
+                slotOfOrdinal[ordinal++] = slot;
+            }
+        }
+        layoutHash = 31 * hash + modules.size();
+
+        for (String lessonId : completedLessonIds) {
+            add(lessonId);
+        }
+    }
+
+    /**
+     * The same completions over a newer index, e.g. after a module was hot-reloaded.
+     * An edit that leaves every lesson where it was keeps the bits as they are;
+     * otherwise they are rebuilt from the ids.
+     */
+    public CompletionSet rebind(ContentIndex newIndex, Collection<String> completedLessonIds) {
+        if (newIndex == index) {
+            return this;
+        }
+        CompletionSet rebound = new CompletionSet(newIndex, List.of());
+        if (rebound.layoutHash == layoutHash && rebound.getLessonCount() == getLessonCount()) {
+            for (int ordinal = completed.nextSetBit(0); ordinal >= 0; ordinal = completed.nextSetBit(ordinal + 1)) {
+                rebound.set(ordinal);
+            }
+        } else {
+            for (String lessonId : completedLessonIds) {
+                rebound.add(lessonId);
+            }
+        }
+        return rebound;
+    }
+
+    /**
+     * Record a completed lesson in the progress and mark it here, the one path
+     * for both; true if it is newly complete in the course
+     */
+    public boolean complete(UserProgress progress, String lessonId) {
+        progress.markLessonComplete(lessonId);
+        return add(lessonId);
+    }
+
+    /**
+     * Mark a lesson complete; false if it already was or is not in the course
+     */
+    public boolean add(String lessonId) {
+        ContentIndex.LessonPosition position = index.getPosition(lessonId);
+        return position != null && set(position.getOrdinal());
+    }
+
+    private boolean set(int ordinal) {
+        if (completed.get(ordinal)) {
+            return false;
+        }
+        completed.set(ordinal);
+        moduleCompleted[slotOfOrdinal[ordinal]]++;
+        completedCount++;
+        return true;
+    }
+
+    public boolean contains(String lessonId) {
+        ContentIndex.LessonPosition position = index.getPosition(lessonId);
+        return position != null && completed.get(position.getOrdinal());
+    }
+
+    /**
+     * Whether the module's lesson at this index (in module order) is complete
+     */
+    public boolean contains(int moduleId, int lessonIndex) {
+        Integer slot = slotsByModuleId.get(moduleId);
+        return slot != null && lessonIndex < moduleSizes[slot] && completed.get(moduleStarts[slot] + lessonIndex);
+    }
+
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    public int getLessonCount() {
+        return slotOfOrdinal.length;
+    }
+
+    public int getCompletedCount(int moduleId) {
+        Integer slot = slotsByModuleId.get(moduleId);
+        return slot != null ? moduleCompleted[slot] : 0;
+    }
+
+    public int getLessonCount(int moduleId) {
+        Integer slot = slotsByModuleId.get(moduleId);
+        return slot != null ? moduleSizes[slot] : 0;
+    }
+
+    /**
+     * Share of the course completed, from 0 to 1
+     */
+    public double getProgress() {
+        return slotOfOrdinal.length > 0 ? (double) completedCount / slotOfOrdinal.length : 0;
+    }
+}
@@ -0,0 +1,126 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup tables over the loaded modules, built once per load (and
+ * per hot-reloaded module): id -> lesson, id -> module, lesson -> position,
+ * and course-order navigation
+ */
+public class ContentIndex {
+
+    /**
+     * Where a lesson sits in the course
+     */
+    public static class LessonPosition {
+        private final Module module;
+        private final int lessonIndex; // Within its module
+        private final int ordinal; // Across the whole course, from 0
+
+        public LessonPosition(Module module, int lessonIndex, int ordinal) {
+            this.module = module;
+            this.lessonIndex = lessonIndex;
+            this.ordinal = ordinal;
+        }
+
+        public Module getModule() {
+            return module;
+        }
+
+        public int getLessonIndex() {
+            return lessonIndex;
+        }
+
+        public int getOrdinal() {
+            return ordinal;
+        }
+    }
+
+    private final List<Module> modules; // In id order
+    private final Map<String, Lesson> lessonsById;
+    private final Map<Integer, Module> modulesById;
+    private final Map<String, LessonPosition> positions;
+    private final Lesson[] lessonsInOrder;
+
+    public ContentIndex(List<Module> modules) {
+        Map<String, Lesson> lessons = new HashMap<>();
+        Map<Integer, Module> byId = new HashMap<>();
+        Map<String, LessonPosition> positionsById = new HashMap<>();
+        int total = 0;
+        for (Module module : modules) {
+            total += module.getLessons() != null ? module.getLessons().size() : 0;
+        }
+        Lesson[] ordered = new Lesson[total];
+
+        int ordinal = 0;
+        for (Module module : modules) {
+            byId.put(module.getId(), module);
+            if (module.getLessons() == null) {
+                continue;
+            }
+            for (int i = 0; i < module.getLessons().size(); i++) {
+                Lesson lesson = module.getLessons().get(i);
+                lessons.put(lesson.getId(), lesson);
+                positionsById.put(lesson.getId(), new LessonPosition(module, i, ordinal));
+                ordered[ordinal++] = lesson;
+            }
+        }
+
+        this.modules = List.copyOf(modules);
+        this.lessonsById = Collections.unmodifiableMap(lessons);
+        this.modulesById = Collections.unmodifiableMap(byId);
+        this.positions = Collections.unmodifiableMap(positionsById);
+        this.lessonsInOrder = ordered;
+    }
+
+    public List<Module> getModules() {
+        return modules;
+    }
+
+    public Lesson getLesson(String lessonId) {
+        return lessonsById.get(lessonId);
+    }
+
+    public Module getModule(int moduleId) {
+        return modulesById.get(moduleId);
+    }
+
+    /**
+     * Module and ordinals of a lesson, or null if it is not in the course
+     */
+    public LessonPosition getPosition(String lessonId) {
+        return positions.get(lessonId);
+    }
+
+    /**
+     * Lesson after this one in course order (crossing into the next module), or null at the end
+     */
+    public Lesson getNextLesson(String lessonId) {
+        LessonPosition position = positions.get(lessonId);
+        if (position == null || position.ordinal + 1 >= lessonsInOrder.length) {
+            return null;
+        }
+        return lessonsInOrder[position.ordinal + 1];
+    }
+
+    /**
+     * Lesson before this one in course order, or null at the start
+     */
+    public Lesson getPreviousLesson(String lessonId) {
+        LessonPosition position = positions.get(lessonId);
+        if (position == null || position.ordinal == 0) {
+            return null;
+        }
+        return lessonsInOrder[position.ordinal - 1];
+    }
+
+    public int getTotalLessonCount() {
+        return lessonsInOrder.length;
+    }
+}
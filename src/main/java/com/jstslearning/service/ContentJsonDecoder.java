@@ -0,0 +1,271 @@
+package com.jstslearning.service;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.jstslearning.model.Challenge;
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+import com.jstslearning.model.Quiz;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming decoder for course content JSON, built on Gson's JsonReader
+ * without reflection. Short repeated strings (ids, titles, test descriptions,
+ * inputs, hints) are deduplicated across everything one decoder reads, and
+ * lesson bodies can be skipped when only the index is needed.
+ * Thread-safe: one decoder may read several modules concurrently.
+ */
+public class ContentJsonDecoder {
+    // Longer strings are lesson prose and code, which never repeat
+    private static final int MAX_INTERNED_LENGTH = 256;
+
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+    /**
+     * Decode a module; with skipBodies only module fields and lesson ids/titles are kept
+     */
+    public Module readModule(Reader in, boolean skipBodies) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        Module module = new Module();
+        List<Lesson> lessons = new ArrayList<>();
+        module.setLessons(lessons);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    module.setId(reader.nextInt());
+                    break;
+                case "title":
+                    module.setTitle(string(reader));
+                    break;
+                case "description":
+                    module.setDescription(string(reader));
+                    break;
+                case "goal":
+                    module.setGoal(string(reader));
+                    break;
+                case "language":
+                    module.setLanguage(string(reader));
+                    break;
+                case "lessons":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        lessons.add(readLesson(reader, skipBodies));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return module;
+    }
+
+    private Lesson readLesson(JsonReader reader, boolean skipBodies) throws IOException {
+        Lesson lesson = new Lesson();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("id")) {
+                lesson.setId(string(reader));
+            } else if (name.equals("title")) {
+                lesson.setTitle(string(reader));
+            } else if (skipBodies) {
+                reader.skipValue();
+            } else {
+                switch (name) {
+                    case "conceptAnalogy":
+                        lesson.setConceptAnalogy(string(reader));
+                        break;
+                    case "codeExample":
+                        lesson.setCodeExample(string(reader));
+                        break;
+                    case "syntaxBreakdown":
+                        lesson.setSyntaxBreakdown(string(reader));
+                        break;
+                    case "challenge":
+                        lesson.setChallenge(readChallenge(reader));
+                        break;
+                    case "solution":
+                        lesson.setSolution(string(reader));
+                        break;
+                    case "commonStickingPoints":
+                        lesson.setCommonStickingPoints(string(reader));
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+        }
+        reader.endObject();
+        return lesson;
+    }
+
+    private Challenge readChallenge(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        Challenge challenge = new Challenge();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "instructions":
+                    challenge.setInstructions(string(reader));
+                    break;
+                case "starterCode":
+                    challenge.setStarterCode(string(reader));
+                    break;
+                case "hint":
+                    challenge.setHint(string(reader));
+                    break;
+                case "testCases":
+                    List<Challenge.TestCase> testCases = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        testCases.add(readTestCase(reader));
+                    }
+                    reader.endArray();
+                    challenge.setTestCases(testCases);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return challenge;
+    }
+
+    private Challenge.TestCase readTestCase(JsonReader reader) throws IOException {
+        Challenge.TestCase testCase = new Challenge.TestCase();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "description":
+                    testCase.setDescription(string(reader));
+                    break;
+                case "input":
+                    testCase.setInput(string(reader));
+                    break;
+                case "expectedOutput":
+                    testCase.setExpectedOutput(string(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return testCase;
+    }
+
+    /**
+     * Decode a quiz; with skipBodies the questions are not read
+     */
+    public Quiz readQuiz(Reader in, boolean skipBodies) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        Quiz quiz = new Quiz();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    quiz.setId(string(reader));
+                    break;
+                case "moduleId":
+                    quiz.setModuleId(string(reader));
+                    break;
+                case "title":
+                    quiz.setTitle(string(reader));
+                    break;
+                case "description":
+                    quiz.setDescription(string(reader));
+                    break;
+                case "passingScore":
+                    quiz.setPassingScore(reader.nextInt());
+                    break;
+                case "questions":
+                    if (skipBodies) {
+                        reader.skipValue();
+                        break;
+                    }
+                    List<Quiz.QuizQuestion> questions = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        questions.add(readQuestion(reader));
+                    }
+                    reader.endArray();
+                    quiz.setQuestions(questions);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return quiz;
+    }
+
+    private Quiz.QuizQuestion readQuestion(JsonReader reader) throws IOException {
+        Quiz.QuizQuestion question = new Quiz.QuizQuestion();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "question":
+                    question.setQuestion(string(reader));
+                    break;
+                case "type":
+                    String type = string(reader);
+                    question.setType(type != null ? Quiz.QuizQuestion.QuestionType.valueOf(type) : null);
+                    break;
+                case "options":
+                    List<String> options = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        options.add(string(reader));
+                    }
+                    reader.endArray();
+                    question.setOptions(options);
+                    break;
+                case "correctAnswer":
+                    question.setCorrectAnswer(string(reader));
+                    break;
+                case "explanation":
+                    question.setExplanation(string(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return question;
+    }
+
+    /**
+     * Next string value (or null), deduplicated when short
+     */
+    private String string(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        String value = reader.nextString();
+        if (value.length() > MAX_INTERNED_LENGTH) {
+            return value;
+        }
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Number of distinct short strings seen so far
+     */
+    public int getDistinctStringCount() {
+        return strings.size();
+    }
+}
@@ -1,41 +1,233 @@
 package com.jstslearning.service;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.jstslearning.model.Lesson;
 import com.jstslearning.model.Module;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
- * Loads course content from embedded JSON resources
+ * Loads course content from the precompiled content pack when the build
+ * produced one, otherwise from the embedded JSON resources. In dev mode
+ * (-Djstslearning.content.dir=path) modules are read from that directory
+ * instead and can be watched for edits (see startWatching).
  */
 public class ContentLoader {
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    private final List<Module> modules = new ArrayList<>();
+    private static final int MODULE_COUNT = 14;
+    private static final Pattern MODULE_FILE = Pattern.compile("module(\\d+)\\.json");
+    private static final long RELOAD_SETTLE_MS = 100; // Editors often write a file in several steps
+
+    private final ContentJsonDecoder decoder = new ContentJsonDecoder(); // Shares strings across modules
+    private final Path contentDir = contentDirFromProperty(); // Null unless in dev mode
+    private final List<Module> modules = new ArrayList<>(); // Filled while loading; afterwards see index
+    private final Map<Integer, Integer> moduleFiles = new HashMap<>(); // Module id -> moduleN.json number
+    private volatile ContentIndex index = new ContentIndex(List.of()); // Rebuilt after every load
+    private final Set<Integer> loadedModules = ConcurrentHashMap.newKeySet(); // Ids with full lesson bodies
+    private final boolean prefetch = Boolean.parseBoolean(System.getProperty("jstslearning.content.prefetch", "true"));
+    private ExecutorService prefetcher;
+    private ContentPack pack; // Source of lesson bodies when the index came from the pack
+    private CompletableFuture<SearchIndex> searchIndex; // Started on first request
+    private WatchService watcher;
 
     /**
      * Load all modules from the resources/content directory
-     * Attempts to load modules 1-14 (full curriculum)
+     * Attempts to load modules 1-14 (full curriculum), in parallel unless
+     * -Djstslearning.content.parallel=false
      */
     public void loadAllModules() {
+        loadAllModules(Boolean.parseBoolean(System.getProperty("jstslearning.content.parallel", "true")));
+    }
+
+    /**
+     * Load all modules, decoding the files concurrently when parallel is set.
+     * Modules are always added in id order.
+     */
+    public void loadAllModules(boolean parallel) {
+        if (contentDir == null && loadFromPack(true)) {
+            return;
+        }
         // Load all available modules (1-14)
-        for (int i = 1; i <= 14; i++) {
+        Module[] loaded = decodeAll(this::loadModule, parallel, "load");
+        for (int i = 1; i <= MODULE_COUNT; i++) {
+            Module module = loaded[i];
+            if (module != null) {
+                addModule(module, i);
+                loadedModules.add(module.getId());
+                System.out.println("Loaded Module " + i + ": " + module.getTitle());
+            }
+        }
+
+        reportLoaded();
+    }
+
+    /**
+     * Lazy alternative to loadAllModules: read only module and lesson ids and
+     * titles. Lesson bodies are parsed when a lesson is first opened (see ensureLoaded).
+     */
+    public void loadModuleIndex() {
+        if (contentDir != null) {
+            // Reloads diff against complete modules, so dev mode always loads everything
+            loadAllModules();
+            return;
+        }
+        if (loadFromPack(false)) {
+            return;
+        }
+        boolean parallel = Boolean.parseBoolean(System.getProperty("jstslearning.content.parallel", "true"));
+        Module[] indexed = decodeAll(this::readModuleIndex, parallel, "index");
+        for (int i = 1; i <= MODULE_COUNT; i++) {
+            Module module = indexed[i];
+            if (module != null) {
+                addModule(module, i);
+                System.out.println("Indexed Module " + i + ": " + module.getTitle());
+            }
+        }
+
+        reportLoaded();
+    }
+
+    /**
+     * Reads one module file; may throw, which is reported per module
+     */
+    private interface ModuleDecoder {
+        Module decode(int moduleNumber) throws Exception;
+    }
+
+    /**
+     * Decode modules 1-14 into an array indexed by file number, on the common
+     * fork-join pool when parallel. A failing module is reported and left null
+     * without affecting the others. Per-module timings are printed in file order.
+     */
+    private Module[] decodeAll(ModuleDecoder decoder, boolean parallel, String action) {
+        Module[] decoded = new Module[MODULE_COUNT + 1];
+        long[] nanos = new long[MODULE_COUNT + 1];
+        long start = System.nanoTime();
+
+        IntStream numbers = IntStream.rangeClosed(1, MODULE_COUNT);
+        (parallel ? numbers.parallel() : numbers).forEach(i -> {
+            long moduleStart = System.nanoTime();
             try {
-                Module module = loadModule(i);
-                if (module != null) {
-                    modules.add(module);
-                    System.out.println("Loaded Module " + i + ": " + module.getTitle());
-                }
+                decoded[i] = decoder.decode(i);
             } catch (Exception e) {
                 // Non-fatal: module may not exist yet
-                System.err.println("Warning: Could not load module " + i + ": " + e.getMessage());
+                System.err.println("Warning: Could not " + action + " module " + i + ": " + e.getMessage());
+            }
+            nanos[i] = System.nanoTime() - moduleStart;
+        });
+
+        for (int i = 1; i <= MODULE_COUNT; i++) {
+            System.out.printf("  module%d.json: %s in %.1f ms%n", i, action, nanos[i] / 1_000_000.0);
+        }
+        System.out.printf("Content %s took %.1f ms (%s)%n", action, (System.nanoTime() - start) / 1_000_000.0,
+                parallel ? "parallel" : "sequential");
+        return decoded;
+    }
+
+    /**
+     * Load from the bundled content pack: everything, or only the index with
+     * bodies read per lesson later. False when there is no usable pack, when
+     * it was built from different JSON than is bundled now (or
+     * -Djstslearning.content.pack=false), so the caller falls back to JSON.
+     */
+    private boolean loadFromPack(boolean full) {
+        if (!Boolean.parseBoolean(System.getProperty("jstslearning.content.pack", "true"))) {
+            return false;
+        }
+        ContentPack contentPack = ContentPack.fromResource();
+        if (contentPack == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        if (!isPackCurrent(contentPack)) {
+            System.err.println("Warning: content pack is stale (the JSON content changed after it was generated; "
+                    + "run mvn process-classes to rebuild it). Loading JSON instead.");
+            return false;
+        }
+        try {
+            List<Module> packed = full ? contentPack.readAll() : contentPack.readIndex();
+            modules.addAll(packed);
+            if (full) {
+                packed.forEach(module -> loadedModules.add(module.getId()));
+            } else {
+                pack = contentPack;
             }
+        } catch (RuntimeException e) {
+            System.err.println("Content pack unreadable, falling back to JSON: " + e);
+            modules.clear();
+            loadedModules.clear();
+            return false;
+        }
+        System.out.printf("Content pack %s took %.1f ms%n", full ? "load" : "index",
+                (System.nanoTime() - start) / 1_000_000.0);
+        reportLoaded();
+        return true;
+    }
+
+    /**
+     * Whether the pack matches the bundled JSON. Only checked when classes run
+     * from a directory (IDE build, mvn compile), where the generator may not
+     * have run since the JSON was edited; a packaged jar always gets both from
+     * the same build, and a pack shipped without any JSON is trusted.
+     */
+    private boolean isPackCurrent(ContentPack contentPack) {
+        URL packUrl = ContentPack.class.getResource(ContentPack.RESOURCE_PATH);
+        if (packUrl == null || !"file".equals(packUrl.getProtocol())) {
+            return true;
         }
+        List<String> fileNames = new ArrayList<>();
+        for (int i = 1; i <= MODULE_COUNT; i++) {
+            fileNames.add("module" + i + ".json");
+        }
+        try {
+            long fingerprint = ContentPack.sourceFingerprint(fileNames, this::openContent);
+            return fingerprint == -1 || contentPack.isBuiltFrom(fingerprint);
+        } catch (IOException e) {
+            System.err.println("Could not check content pack against JSON: " + e.getMessage());
+            return false;
+        }
+    }
 
+    private void addModule(Module module, int fileNumber) {
+        modules.add(module);
+        moduleFiles.put(module.getId(), fileNumber);
+    }
+
+    private void reportLoaded() {
+        modules.sort(Comparator.comparingInt(Module::getId));
+        index = new ContentIndex(modules);
         if (modules.isEmpty()) {
             System.err.println("ERROR: No modules could be loaded!");
         } else {
@@ -47,35 +239,450 @@ public class ContentLoader {
      * Load a specific module from JSON
      */
     private Module loadModule(int moduleNumber) {
-        String resourcePath = "/content/module" + moduleNumber + ".json";
-        try (InputStream is = getClass().getResourceAsStream(resourcePath)) {
+        try {
+            return decodeModule(moduleNumber, false);
+        } catch (Exception e) {
+            System.err.println("Error loading module " + moduleNumber + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Read a module's header and lesson ids/titles, skipping the lesson bodies
+     */
+    private Module readModuleIndex(int moduleNumber) throws IOException {
+        return decodeModule(moduleNumber, true);
+    }
+
+    private Module decodeModule(int moduleNumber, boolean skipBodies) throws IOException {
+        String fileName = "module" + moduleNumber + ".json";
+        try (InputStream is = openContent(fileName)) {
             if (is == null) {
-                System.err.println("Resource not found: " + resourcePath);
+                System.err.println("Resource not found: " + fileName);
                 return null;
             }
-            InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
-            return gson.fromJson(reader, Module.class);
+            return decoder.readModule(new InputStreamReader(is, StandardCharsets.UTF_8), skipBodies);
+        }
+    }
+
+    /**
+     * A content file from the dev content directory, or from the embedded resources; null if missing
+     */
+    private InputStream openContent(String fileName) throws IOException {
+        if (contentDir != null) {
+            Path file = contentDir.resolve(fileName);
+            return Files.isRegularFile(file) ? Files.newInputStream(file) : null;
+        }
+        return getClass().getResourceAsStream("/content/" + fileName);
+    }
+
+    private static Path contentDirFromProperty() {
+        String dir = System.getProperty("jstslearning.content.dir");
+        return dir != null && !dir.isBlank() ? Paths.get(dir) : null;
+    }
+
+    /**
+     * Make sure the lesson's body (analogy, example, breakdown, challenge,
+     * solution) is loaded. A no-op in eager mode or once its module was parsed.
+     */
+    public void ensureLoaded(Lesson lesson) {
+        Module module = getModuleOf(lesson);
+        if (module != null) {
+            ensureModuleLoaded(module);
+        }
+    }
+
+    /**
+     * Parse the full module file and fill in the bodies of its indexed lessons,
+     * keeping the same Lesson instances so tree items and lookups stay valid
+     */
+    private void ensureModuleLoaded(Module module) {
+        if (loadedModules.contains(module.getId())) {
+            return;
+        }
+        synchronized (module) {
+            if (loadedModules.contains(module.getId())) {
+                return;
+            }
+            long start = System.nanoTime();
+            if (pack != null) {
+                // Each lesson body is read straight from its offset in the pack
+                module.getLessons().forEach(pack::readLessonBody);
+                loadedModules.add(module.getId());
+                return;
+            }
+            Module full = loadModule(moduleFiles.get(module.getId()));
+            if (full == null || full.getLessons() == null) {
+                return;
+            }
+            Map<String, Lesson> bodies = new HashMap<>();
+            for (Lesson lesson : full.getLessons()) {
+                bodies.put(lesson.getId(), lesson);
+            }
+            for (Lesson lesson : module.getLessons()) {
+                Lesson body = bodies.get(lesson.getId());
+                if (body != null) {
+                    lesson.setConceptAnalogy(body.getConceptAnalogy());
+                    lesson.setCodeExample(body.getCodeExample());
+                    lesson.setSyntaxBreakdown(body.getSyntaxBreakdown());
+                    lesson.setChallenge(body.getChallenge());
+                    lesson.setSolution(body.getSolution());
+                    lesson.setCommonStickingPoints(body.getCommonStickingPoints());
+                }
+            }
+            // Published last: a thread that sees the id here also sees the bodies
+            loadedModules.add(module.getId());
+            System.out.printf("Loaded Module %d lessons in %.1f ms%n",
+                    module.getId(), (System.nanoTime() - start) / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Parse the modules before and after the lesson's module in the background,
+     * so moving to the next or previous module does not wait on parsing.
+     * Disable with -Djstslearning.content.prefetch=false.
+     */
+    public void prefetchNeighbours(Lesson lesson) {
+        Module module = getModuleOf(lesson);
+        if (!prefetch || module == null) {
+            return;
+        }
+        List<Module> current = getModules();
+        int position = current.indexOf(module);
+        for (int neighbour : new int[]{position + 1, position - 1}) {
+            if (neighbour >= 0 && neighbour < current.size()
+                    && !loadedModules.contains(current.get(neighbour).getId())) {
+                Module target = current.get(neighbour);
+                prefetcher().execute(() -> ensureModuleLoaded(target));
+            }
+        }
+    }
+
+    private synchronized ExecutorService prefetcher() {
+        if (prefetcher == null) {
+            prefetcher = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "content-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return prefetcher;
+    }
+
+    /**
+     * Full-text index over lesson titles and bodies, built on a background
+     * thread on first call (the UI asks on the first search). The index is
+     * cached in the user's app data directory (see searchCacheFile) and
+     * reused while the content is unchanged.
+     */
+    public synchronized CompletableFuture<SearchIndex> getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = CompletableFuture.supplyAsync(this::loadOrBuildSearchIndex, runnable -> {
+                Thread thread = new Thread(runnable, "search-index");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Ranked lesson matches for a query, or an empty list while the index is still being built
+     */
+    public List<SearchIndex.Hit> search(String query, int limit) {
+        CompletableFuture<SearchIndex> future = getSearchIndex();
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return List.of();
+        }
+        return future.join().search(query, limit);
+    }
+
+    private SearchIndex loadOrBuildSearchIndex() {
+        long start = System.nanoTime();
+        String fingerprint = contentFingerprint();
+        Path cacheFile = searchCacheFile();
+
+        if (Files.isRegularFile(cacheFile)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(cacheFile))) {
+                SearchIndex cached = SearchIndex.readFrom(in);
+                if (cached.getFingerprint().equals(fingerprint)) {
+                    System.out.printf("Search index read from cache in %.1f ms%n",
+                            (System.nanoTime() - start) / 1_000_000.0);
+                    return cached;
+                }
+            } catch (IOException e) {
+                System.err.println("Ignoring search index cache: " + e.getMessage());
+            }
+        }
+
+        List<Module> withBodies = new ArrayList<>();
+        for (Module module : getModules()) {
+            withBodies.add(moduleWithBodies(module));
+        }
+        SearchIndex built = SearchIndex.build(withBodies, fingerprint);
+        System.out.printf("Search index built in %.1f ms (%d terms)%n",
+                (System.nanoTime() - start) / 1_000_000.0, built.getTermCount());
+
+        try {
+            Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            // Write beside the target and move into place so a crash never leaves a torn cache
+            Path temp = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "search_index", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                built.writeTo(out);
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Could not cache search index: " + e.getMessage());
+        }
+        return built;
+    }
+
+    /**
+     * -Djstslearning.search.cache, or search_index.bin in the per-user app data
+     * directory (%APPDATA%\jstslearning on Windows, ~/.jstslearning elsewhere),
+     * never the directory the app happened to be started from
+     */
+    static Path searchCacheFile() {
+        String configured = System.getProperty("jstslearning.search.cache");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        String appData = System.getenv("APPDATA");
+        Path dir = appData != null && !appData.isBlank()
+                ? Paths.get(appData, "jstslearning")
+                : Paths.get(System.getProperty("user.home"), ".jstslearning");
+        return dir.resolve("search_index.bin");
+    }
+
+    /**
+     * The module itself once its bodies are loaded; otherwise a throwaway copy
+     * read just for indexing, so building the index does not pull every
+     * lesson body into memory behind the lazy loader's back
+     */
+    private Module moduleWithBodies(Module module) {
+        if (loadedModules.contains(module.getId())) {
+            return module;
+        }
+        if (pack != null) {
+            List<Lesson> lessons = new ArrayList<>();
+            for (Lesson indexed : module.getLessons()) {
+                Lesson lesson = new Lesson();
+                lesson.setId(indexed.getId());
+                lesson.setTitle(indexed.getTitle());
+                pack.readLessonBody(lesson);
+                lessons.add(lesson);
+            }
+            Module copy = new Module();
+            copy.setId(module.getId());
+            copy.setLessons(lessons);
+            return copy;
+        }
+        Module full = loadModule(moduleFiles.get(module.getId()));
+        return full != null && full.getLessons() != null ? full : module;
+    }
+
+    /**
+     * SHA-256 over the content files, so a cached index is dropped when the course changes
+     */
+    private String contentFingerprint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            List<String> files = new ArrayList<>();
+            files.add("content.pack");
+            for (int i = 1; i <= MODULE_COUNT; i++) {
+                files.add("module" + i + ".json");
+            }
+            for (String file : files) {
+                try (InputStream is = openContent(file)) {
+                    if (is != null) {
+                        digest.update(file.getBytes(StandardCharsets.UTF_8));
+                        digest.update(is.readAllBytes());
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            // Unknown content: never matches a cached index
+            return "unknown-" + System.nanoTime();
+        }
+    }
+
+    /**
+     * Dev mode only: watch the content directory and re-parse a module file
+     * whenever it is saved. Only that module is diffed against the loaded one
+     * and swapped in; the listener is called (on the watcher thread) with the
+     * change. Returns false when there is no content directory to watch.
+     */
+    public synchronized boolean startWatching(Consumer<ModuleChange> listener) {
+        if (contentDir == null || watcher != null) {
+            return false;
+        }
+        try {
+            watcher = contentDir.getFileSystem().newWatchService();
+            contentDir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("Could not watch " + contentDir + ": " + e.getMessage());
+            watcher = null;
+            return false;
+        }
+        WatchService service = watcher;
+        Thread thread = new Thread(() -> watchLoop(service, listener), "content-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Watching " + contentDir.toAbsolutePath() + " for content changes");
+        return true;
+    }
+
+    public synchronized void stopWatching() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                System.err.println("Error closing content watcher: " + e.getMessage());
+            }
+            watcher = null;
+        }
+    }
+
+    private void watchLoop(WatchService service, Consumer<ModuleChange> listener) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                // Let the write finish, then handle every file touched meanwhile once
+                Thread.sleep(RELOAD_SETTLE_MS);
+                Set<Integer> changed = new TreeSet<>();
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        Matcher matcher = MODULE_FILE.matcher(String.valueOf(event.context()));
+                        if (matcher.matches()) {
+                            changed.add(Integer.parseInt(matcher.group(1)));
+                        }
+                    }
+                    key.reset();
+                    key = service.poll();
+                }
+                for (int moduleNumber : changed) {
+                    ModuleChange change = reloadModule(moduleNumber);
+                    if (change != null) {
+                        listener.accept(change);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // stopWatching
+        }
+    }
+
+    /**
+     * Re-parse one module file and swap it in, or return null if it did not
+     * parse (e.g. saved mid-edit) or nothing in it changed
+     */
+    private ModuleChange reloadModule(int moduleNumber) {
+        long start = System.nanoTime();
+        Module fresh;
+        try {
+            fresh = decodeModule(moduleNumber, false);
         } catch (Exception e) {
-            System.err.println("Error loading module " + moduleNumber + ": " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Keeping previous module " + moduleNumber + ", file does not parse: " + e.getMessage());
+            return null;
+        }
+        if (fresh == null) {
             return null;
         }
+
+        ModuleChange change;
+        synchronized (this) {
+            Module old = index.getModule(fresh.getId());
+            change = ModuleChange.between(old, fresh);
+            if (change.isEmpty()) {
+                return null;
+            }
+            List<Module> updated = new ArrayList<>(index.getModules());
+            updated.remove(old);
+            updated.add(change.getModule());
+            updated.sort(Comparator.comparingInt(Module::getId));
+            moduleFiles.put(fresh.getId(), moduleNumber);
+            loadedModules.add(fresh.getId());
+            // Readers see either the old or the new course, never a mix
+            index = new ContentIndex(updated);
+
+            if (searchIndex != null) {
+                searchIndex = null;
+                getSearchIndex();
+            }
+        }
+        System.out.printf("Reloaded %s in %.1f ms%n", change, (System.nanoTime() - start) / 1_000_000.0);
+        return change;
+    }
+
+    /**
+     * Content directory in dev mode, or null when content comes from the bundled resources
+     */
+    public Path getContentDir() {
+        return contentDir;
+    }
+
+    /**
+     * Lookup tables over the current content; replaced whenever content is (re)loaded
+     */
+    public ContentIndex getContentIndex() {
+        return index;
     }
 
     /**
      * Get all loaded modules
      */
     public List<Module> getModules() {
-        return modules;
+        return index.getModules();
     }
 
     /**
      * Find a module by ID
      */
     public Module getModuleById(int id) {
-        return modules.stream()
-                .filter(m -> m.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return index.getModule(id);
+    }
+
+    /**
+     * Find a lesson by ID, or null if it is not in the course
+     */
+    public Lesson getLesson(String lessonId) {
+        return index.getLesson(lessonId);
+    }
+
+    /**
+     * Module containing the lesson
+     */
+    public Module getModuleOf(Lesson lesson) {
+        ContentIndex.LessonPosition position = index.getPosition(lesson.getId());
+        return position != null ? position.getModule() : null;
+    }
+
+    /**
+     * Module and course-wide ordinal of a lesson, or null if it is not in the course
+     */
+    public ContentIndex.LessonPosition getLessonPosition(String lessonId) {
+        return index.getPosition(lessonId);
+    }
+
+    /**
+     * Next lesson in course order, or null after the last lesson
+     */
+    public Lesson getNextLesson(Lesson lesson) {
+        return index.getNextLesson(lesson.getId());
+    }
+
+    /**
+     * Previous lesson in course order, or null before the first lesson
+     */
+    public Lesson getPreviousLesson(Lesson lesson) {
+        return index.getPreviousLesson(lesson.getId());
+    }
+
+    public int getTotalLessonCount() {
+        return index.getTotalLessonCount();
     }
 }
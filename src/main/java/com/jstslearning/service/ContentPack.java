@@ -0,0 +1,326 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.Challenge;
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Precompiled binary form of the course content, generated at build time by
+ * ContentPackGenerator so launches skip JSON parsing and reflection.
+ *
+ * Layout (big-endian ints, strings as indices into the table, -1 for null):
+ * <pre>
+ *   magic "JSTP", version, fingerprint (CRC-32 and length) of the JSON it was built from
+ *   string table: count, count + 1 offsets into the UTF-8 data, data
+ *   index: module count, then per module id, title, description, goal,
+ *          language, lesson count and per lesson id, title, body offset
+ *   lesson bodies: analogy, example, breakdown, solution, sticking points,
+ *          challenge flag [instructions, starter code, hint, test count,
+ *          per test description, input, expected output]
+ * </pre>
+ * Strings are decoded on first use, so reading the index touches only titles.
+ * The source fingerprint lets the loader notice a pack left stale by a build
+ * that skipped the generator (e.g. an IDE build or mvn compile).
+ */
+public class ContentPack {
+    public static final String RESOURCE_PATH = "/content/content.pack";
+    private static final int MAGIC = 0x4A535450; // "JSTP"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 20;
+
+    /**
+     * Opens a content file by name, or returns null when there is no such file
+     */
+    public interface SourceFiles {
+        InputStream open(String fileName) throws IOException;
+    }
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int stringOffsetsAt; // Position of the string offset table
+    private final int stringDataAt; // Position of the UTF-8 string data
+    private final int indexAt; // Position of the module index
+    private final String[] strings; // Decoded lazily
+    private final Map<String, Integer> lessonOffsets = new HashMap<>();
+
+    private ContentPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a content pack");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported content pack version " + buffer.getInt(4));
+        }
+        this.stringCount = buffer.getInt(16);
+        this.stringOffsetsAt = HEADER_BYTES;
+        this.stringDataAt = stringOffsetsAt + (stringCount + 1) * 4;
+        this.indexAt = stringDataAt + buffer.getInt(stringOffsetsAt + stringCount * 4);
+        this.strings = new String[stringCount];
+    }
+
+    /**
+     * Open the pack bundled on the classpath, or return null when it is missing or unreadable
+     */
+    public static ContentPack fromResource() {
+        try (InputStream is = ContentPack.class.getResourceAsStream(RESOURCE_PATH)) {
+            if (is == null) {
+                return null;
+            }
+            return new ContentPack(ByteBuffer.wrap(is.readAllBytes()));
+        } catch (IOException e) {
+            System.err.println("Ignoring content pack: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether the pack was generated from JSON files with this fingerprint
+     */
+    public boolean isBuiltFrom(long sourceFingerprint) {
+        return buffer.getLong(8) == sourceFingerprint;
+    }
+
+    /**
+     * CRC-32 over the named JSON files (name and bytes, in the given order) in
+     * the high half and their total size in the low half, or -1 when none of
+     * them exist. Only meant to catch a stale pack, so a cheap checksum that
+     * is fast even before the JIT warms up is enough.
+     */
+    public static long sourceFingerprint(List<String> fileNames, SourceFiles files) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        boolean found = false;
+        for (String fileName : fileNames) {
+            try (InputStream is = files.open(fileName)) {
+                if (is != null) {
+                    byte[] bytes = is.readAllBytes();
+                    crc.update(fileName.getBytes(StandardCharsets.UTF_8));
+                    crc.update(bytes);
+                    size += bytes.length;
+                    found = true;
+                }
+            }
+        }
+        return found ? crc.getValue() << 32 | (size & 0xFFFFFFFFL) : -1;
+    }
+
+    /**
+     * Modules with lesson ids and titles only; fill bodies with readLessonBody
+     */
+    public synchronized List<Module> readIndex() {
+        int pos = indexAt;
+        int moduleCount = buffer.getInt(pos);
+        pos += 4;
+        List<Module> modules = new ArrayList<>(moduleCount);
+        for (int m = 0; m < moduleCount; m++) {
+            Module module = new Module();
+            module.setId(buffer.getInt(pos));
+            module.setTitle(string(buffer.getInt(pos + 4)));
+            module.setDescription(string(buffer.getInt(pos + 8)));
+            module.setGoal(string(buffer.getInt(pos + 12)));
+            module.setLanguage(string(buffer.getInt(pos + 16)));
+            int lessonCount = buffer.getInt(pos + 20);
+            pos += 24;
+            List<Lesson> lessons = new ArrayList<>(lessonCount);
+            for (int l = 0; l < lessonCount; l++) {
+                Lesson lesson = new Lesson();
+                lesson.setId(string(buffer.getInt(pos)));
+                lesson.setTitle(string(buffer.getInt(pos + 4)));
+                lessonOffsets.put(lesson.getId(), buffer.getInt(pos + 8));
+                lessons.add(lesson);
+                pos += 12;
+            }
+            module.setLessons(lessons);
+            modules.add(module);
+        }
+        return modules;
+    }
+
+    /**
+     * Modules with every lesson body filled in
+     */
+    public synchronized List<Module> readAll() {
+        List<Module> modules = readIndex();
+        for (Module module : modules) {
+            for (Lesson lesson : module.getLessons()) {
+                readLessonBody(lesson);
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Fill in a lesson's body from its offset in the pack; false if the pack does not contain it
+     */
+    public synchronized boolean readLessonBody(Lesson lesson) {
+        Integer offset = lessonOffsets.get(lesson.getId());
+        if (offset == null) {
+            return false;
+        }
+        int pos = offset;
+        lesson.setConceptAnalogy(string(buffer.getInt(pos)));
+        lesson.setCodeExample(string(buffer.getInt(pos + 4)));
+        lesson.setSyntaxBreakdown(string(buffer.getInt(pos + 8)));
+        lesson.setSolution(string(buffer.getInt(pos + 12)));
+        lesson.setCommonStickingPoints(string(buffer.getInt(pos + 16)));
+        pos += 20;
+        if (buffer.get(pos++) == 0) {
+            lesson.setChallenge(null);
+            return true;
+        }
+        Challenge challenge = new Challenge();
+        challenge.setInstructions(string(buffer.getInt(pos)));
+        challenge.setStarterCode(string(buffer.getInt(pos + 4)));
+        challenge.setHint(string(buffer.getInt(pos + 8)));
+        int testCount = buffer.getInt(pos + 12);
+        pos += 16;
+        List<Challenge.TestCase> testCases = new ArrayList<>(testCount);
+        for (int t = 0; t < testCount; t++) {
+            testCases.add(new Challenge.TestCase(string(buffer.getInt(pos)),
+                    string(buffer.getInt(pos + 4)), string(buffer.getInt(pos + 8))));
+            pos += 12;
+        }
+        challenge.setTestCases(testCases);
+        lesson.setChallenge(challenge);
+        return true;
+    }
+
+    private String string(int index) {
+        if (index < 0) {
+            return null;
+        }
+        String s = strings[index];
+        if (s == null) {
+            int start = buffer.getInt(stringOffsetsAt + index * 4);
+            int end = buffer.getInt(stringOffsetsAt + (index + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringDataAt + start, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = s;
+        }
+        return s;
+    }
+
+    /**
+     * Write fully loaded modules as a pack, stamped with the fingerprint of
+     * the JSON they came from. Equal strings are stored once.
+     */
+    public static void write(List<Module> modules, long sourceFingerprint, OutputStream out) throws IOException {
+        Map<String, Integer> table = new LinkedHashMap<>();
+
+        // Index and bodies reference strings by number; lay out bodies first to learn their sizes
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream bodies = new DataOutputStream(bodyBytes);
+        List<Integer> bodyOffsets = new ArrayList<>();
+        for (Module module : modules) {
+            for (Lesson lesson : lessons(module)) {
+                bodyOffsets.add(bodies.size());
+                bodies.writeInt(intern(table, lesson.getConceptAnalogy()));
+                bodies.writeInt(intern(table, lesson.getCodeExample()));
+                bodies.writeInt(intern(table, lesson.getSyntaxBreakdown()));
+                bodies.writeInt(intern(table, lesson.getSolution()));
+                bodies.writeInt(intern(table, lesson.getCommonStickingPoints()));
+                Challenge challenge = lesson.getChallenge();
+                bodies.writeByte(challenge != null ? 1 : 0);
+                if (challenge != null) {
+                    bodies.writeInt(intern(table, challenge.getInstructions()));
+                    bodies.writeInt(intern(table, challenge.getStarterCode()));
+                    bodies.writeInt(intern(table, challenge.getHint()));
+                    List<Challenge.TestCase> testCases = challenge.getTestCases() != null
+                            ? challenge.getTestCases() : List.of();
+                    bodies.writeInt(testCases.size());
+                    for (Challenge.TestCase testCase : testCases) {
+                        bodies.writeInt(intern(table, testCase.getDescription()));
+                        bodies.writeInt(intern(table, testCase.getInput()));
+                        bodies.writeInt(intern(table, testCase.getExpectedOutput()));
+                    }
+                }
+            }
+        }
+
+        int indexSize = 4;
+        for (Module module : modules) {
+            indexSize += 24 + 12 * lessons(module).size();
+            intern(table, module.getTitle());
+            intern(table, module.getDescription());
+            intern(table, module.getGoal());
+            intern(table, module.getLanguage());
+            for (Lesson lesson : lessons(module)) {
+                intern(table, lesson.getId());
+                intern(table, lesson.getTitle());
+            }
+        }
+
+        List<byte[]> encoded = new ArrayList<>(table.size());
+        int dataSize = 0;
+        for (String s : table.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            dataSize += bytes.length;
+        }
+        int bodiesAt = HEADER_BYTES + (table.size() + 1) * 4 + dataSize + indexSize;
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(sourceFingerprint);
+        data.writeInt(table.size());
+        int offset = 0;
+        for (byte[] bytes : encoded) {
+            data.writeInt(offset);
+            offset += bytes.length;
+        }
+        data.writeInt(offset);
+        for (byte[] bytes : encoded) {
+            data.write(bytes);
+        }
+
+        data.writeInt(modules.size());
+        int lessonNumber = 0;
+        for (Module module : modules) {
+            data.writeInt(module.getId());
+            data.writeInt(intern(table, module.getTitle()));
+            data.writeInt(intern(table, module.getDescription()));
+            data.writeInt(intern(table, module.getGoal()));
+            data.writeInt(intern(table, module.getLanguage()));
+            data.writeInt(lessons(module).size());
+            for (Lesson lesson : lessons(module)) {
+                data.writeInt(intern(table, lesson.getId()));
+                data.writeInt(intern(table, lesson.getTitle()));
+                data.writeInt(bodiesAt + bodyOffsets.get(lessonNumber++));
+            }
+        }
+        bodyBytes.writeTo(data);
+        data.flush();
+    }
+
+    private static List<Lesson> lessons(Module module) {
+        return module.getLessons() != null ? module.getLessons() : List.of();
+    }
+
+    private static int intern(Map<String, Integer> table, String s) {
+        if (s == null) {
+            return -1;
+        }
+        Integer index = table.get(s);
+        if (index == null) {
+            index = table.size();
+            table.put(s, index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,434 @@
+package com.jstslearning.service;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.ResourceLimits;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Bounded pool of pre-warmed JavaScript contexts that share one GraalVM engine.
+ * The shared engine keeps parsed and compiled code across contexts, so a run
+ * no longer pays full engine startup and warmup.
+ */
+public class ContextPool {
+
+    // Small snippet run once per new context so common builtins are initialized
+    private static final String WARMUP_CODE = "[1, 2, 3].map(x => x * 2).filter(x => x > 2).join(',');";
+
+    /**
+     * Pool sizing. Every context serves a single run and is then closed: a
+     * reused context would carry changes to built-ins (Array.prototype,
+     * Math.random, frozen globals, non-configurable vars) into the next run.
+     */
+    public static class Config {
+        private final int poolSize; // Max contexts executing at once
+        private final int warmCount; // Idle contexts kept ready in the background
+
+        public Config(int poolSize, int warmCount) {
+            if (poolSize < 1 || warmCount < 0) {
+                throw new IllegalArgumentException("Invalid context pool configuration");
+            }
+            this.poolSize = poolSize;
+            this.warmCount = Math.min(warmCount, poolSize);
+        }
+
+        /**
+         * Defaults, overridable with -Djstslearning.pool.size/.warm
+         */
+        public static Config defaults() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return new Config(
+                    Integer.getInteger("jstslearning.pool.size", Math.max(2, cores)),
+                    Integer.getInteger("jstslearning.pool.warm", 2));
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getWarmCount() {
+            return warmCount;
+        }
+    }
+
+    /**
+     * A context checked out of the pool together with its captured output
+     */
+    public static class PooledContext {
+        private final Context context;
+        private final BoundedOutputStream output;
+        private final AtomicReference<CodeExecutor.ExecutionResult.LimitType> limitExceeded =
+                new AtomicReference<>();
+        private long lease; // Incremented on every checkout
+        private boolean active; // Checked out and not yet released
+
+        private PooledContext(Context context, BoundedOutputStream output) {
+            this.context = context;
+            this.output = output;
+        }
+
+        public Context getContext() {
+            return context;
+        }
+
+        public ByteArrayOutputStream getOutput() {
+            return output;
+        }
+
+        /**
+         * Called (on the writing thread) once output passes the byte cap
+         */
+        public void setOverflowHandler(Runnable handler) {
+            output.overflowHandler = handler;
+        }
+
+        /**
+         * Forward each complete line of output to the listener as it is written
+         */
+        public void setOutputListener(Consumer<String> listener) {
+            output.setListener(listener);
+        }
+
+        /**
+         * Forward any trailing output that did not end with a newline
+         */
+        public void flushOutputListener() {
+            output.flushListener();
+        }
+
+        /**
+         * Identifies the current checkout, so a late cancel cannot hit the next run
+         */
+        public synchronized long getLease() {
+            return lease;
+        }
+
+        /**
+         * Force-close the context if it is still serving the given checkout.
+         * A non-null limit is recorded first; the first limit hit wins.
+         */
+        public synchronized boolean cancel(long lease, CodeExecutor.ExecutionResult.LimitType limit) {
+            if (!active || this.lease != lease) {
+                return false;
+            }
+            if (limit != null && !limitExceeded.compareAndSet(null, limit)) {
+                return false;
+            }
+            try {
+                context.close(true);
+            } catch (RuntimeException e) {
+                // Already closed
+            }
+            return true;
+        }
+
+        private synchronized void begin() {
+            lease++;
+            active = true;
+            limitExceeded.set(null);
+        }
+
+        private synchronized void end() {
+            active = false;
+        }
+
+        public CodeExecutor.ExecutionResult.LimitType getLimitExceeded() {
+            return limitExceeded.get();
+        }
+    }
+
+    /**
+     * Output buffer that stops growing at a fixed size and reports the overflow.
+     * Complete lines can also be streamed to a listener while the code runs.
+     */
+    private static class BoundedOutputStream extends ByteArrayOutputStream {
+        private final int maxBytes;
+        private volatile Runnable overflowHandler;
+        private Consumer<String> listener;
+        private int forwarded; // Bytes already handed to the listener
+        private boolean overflowed;
+
+        BoundedOutputStream(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if (count >= maxBytes) {
+                overflow();
+                return;
+            }
+            super.write(b);
+            forwardLines();
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            int room = maxBytes - count;
+            if (len > room) {
+                super.write(b, off, Math.max(room, 0));
+                forwardLines();
+                overflow();
+                return;
+            }
+            super.write(b, off, len);
+            forwardLines();
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            forwarded = 0;
+            overflowed = false;
+        }
+
+        synchronized void setListener(Consumer<String> listener) {
+            this.listener = listener;
+            this.forwarded = count;
+        }
+
+        synchronized void flushListener() {
+            if (listener != null && count > forwarded) {
+                listener.accept(new String(buf, forwarded, count - forwarded, StandardCharsets.UTF_8));
+                forwarded = count;
+            }
+        }
+
+        /**
+         * Hand over everything up to the last newline; splitting on '\n' never cuts a UTF-8 sequence
+         */
+        private void forwardLines() {
+            if (listener == null) {
+                return;
+            }
+            int end = count - 1;
+            while (end >= forwarded && buf[end] != '\n') {
+                end--;
+            }
+            if (end >= forwarded) {
+                listener.accept(new String(buf, forwarded, end + 1 - forwarded, StandardCharsets.UTF_8));
+                forwarded = end + 1;
+            }
+        }
+
+        private void overflow() {
+            if (!overflowed) {
+                overflowed = true;
+                Runnable handler = overflowHandler;
+                if (handler != null) {
+                    handler.run();
+                }
+            }
+        }
+    }
+
+    private final Config config;
+    private final ExecutionLimits limits;
+    private final SourceCache sources;
+    private final Source prelude;
+    private final Source warmup;
+    private final Engine engine;
+    private final ResourceLimits resourceLimits;
+    private final BlockingQueue<PooledContext> idle;
+    private final Semaphore permits;
+    private final ExecutorService warmer;
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * Create a pool whose contexts all run the given prelude (e.g. the console shim) once on creation
+     */
+    public ContextPool(Config config, ExecutionLimits limits, String prelude) {
+        this.config = config;
+        this.limits = limits;
+        this.sources = SourceCache.withDefaultSize();
+        this.prelude = sources.get(prelude);
+        this.warmup = sources.get(WARMUP_CODE);
+        this.engine = Engine.newBuilder("js").build();
+        // Contexts sharing an engine must share the same statement limit
+        this.resourceLimits = ResourceLimits.newBuilder()
+                .statementLimit(limits.getStatementLimit(), null)
+                .build();
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, config.getWarmCount()));
+        this.permits = new Semaphore(config.getPoolSize(), true);
+        this.warmer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "js-context-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleRefill();
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public ExecutionLimits getLimits() {
+        return limits;
+    }
+
+    public SourceCache getSourceCache() {
+        return sources;
+    }
+
+    /**
+     * Check out a context, blocking while poolSize contexts are already in use
+     */
+    public PooledContext acquire() throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Context pool is closed");
+        }
+        permits.acquire();
+        try {
+            PooledContext pooled = idle.poll();
+            if (pooled == null) {
+                pooled = createContext();
+            }
+            // Start every run with a fresh statement budget and no limit recorded
+            pooled.context.resetLimits();
+            pooled.begin();
+            pooled.setOverflowHandler(null);
+            pooled.setOutputListener(null);
+            scheduleRefill();
+            return pooled;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a context after its run. It is closed rather than reused, so
+     * nothing one run does to the global environment reaches the next.
+     */
+    public void release(PooledContext pooled) {
+        try {
+            pooled.end();
+            closeQuietly(pooled);
+        } finally {
+            permits.release();
+            scheduleRefill();
+        }
+    }
+
+    /**
+     * Evaluate code parts (student code, then any test harness) in a pooled
+     * context as cached Sources
+     */
+    public Value eval(PooledContext pooled, String... parts) {
+        Value result = null;
+        for (String part : parts) {
+            result = pooled.context.eval(sources.get(part));
+        }
+        return result;
+    }
+
+    /**
+     * Parse code ahead of time on the warmer thread (e.g. a lesson's starter
+     * code and test inputs) so the engine already holds it when a run starts
+     */
+    public void prepare(List<String> codes) {
+        if (closed || codes.isEmpty()) {
+            return;
+        }
+        warmer.execute(() -> {
+            PooledContext pooled = idle.poll();
+            try {
+                if (pooled == null) {
+                    pooled = createContext();
+                }
+                for (String code : codes) {
+                    try {
+                        // Parsing compiles without running, so the context stays clean
+                        pooled.context.parse(sources.get(code));
+                    } catch (PolyglotException e) {
+                        // Starter code may be incomplete on purpose; the student will see the error on Run
+                    }
+                }
+                if (closed || !idle.offer(pooled)) {
+                    closeQuietly(pooled);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to prepare code: " + e.getMessage());
+            }
+        });
+    }
+
+    private PooledContext createContext() {
+        BoundedOutputStream output = new BoundedOutputStream(limits.getMaxOutputBytes());
+        Context context = Context.newBuilder("js")
+                .engine(engine)
+                .allowAllAccess(false) // Security: restrict file system access
+                .resourceLimits(resourceLimits)
+                .out(output)
+                .err(output)
+                .build();
+        try {
+            context.eval(prelude);
+            context.eval(warmup);
+            return new PooledContext(context, output);
+        } catch (RuntimeException e) {
+            context.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Top up the idle queue to warmCount on the background warmer thread
+     */
+    private void scheduleRefill() {
+        if (closed || config.getWarmCount() == 0 || !refillScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        warmer.execute(() -> {
+            refillScheduled.set(false);
+            while (!closed && idle.size() < config.getWarmCount()) {
+                try {
+                    PooledContext pooled = createContext();
+                    if (!idle.offer(pooled)) {
+                        closeQuietly(pooled);
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to pre-warm JavaScript context: " + e.getMessage());
+                    return;
+                }
+            }
+        });
+    }
+
+    private static void closeQuietly(PooledContext pooled) {
+        try {
+            pooled.context.close(true);
+        } catch (RuntimeException e) {
+            // Already closed or cancelled
+        }
+    }
+
+    /**
+     * Close all idle contexts and the shared engine, cancelling anything still running
+     */
+    public void close() {
+        closed = true;
+        warmer.shutdownNow();
+        PooledContext pooled;
+        while ((pooled = idle.poll()) != null) {
+            closeQuietly(pooled);
+        }
+        engine.close(true);
+    }
+}
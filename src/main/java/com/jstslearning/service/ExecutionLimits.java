@@ -0,0 +1,41 @@
+package com.jstslearning.service;
+
+/**
+ * Per-execution limits that keep a runaway submission from tying up the machine
+ */
+public class ExecutionLimits {
+    private final long timeLimitMillis; // Wall-clock budget enforced by the watchdog
+    private final long statementLimit; // GraalVM statement count limit per run
+    private final int maxOutputBytes; // Captured console output cap
+
+    public ExecutionLimits(long timeLimitMillis, long statementLimit, int maxOutputBytes) {
+        if (timeLimitMillis <= 0 || statementLimit <= 0 || maxOutputBytes <= 0) {
+            throw new IllegalArgumentException("Execution limits must be positive");
+        }
+        this.timeLimitMillis = timeLimitMillis;
+        this.statementLimit = statementLimit;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    /**
+     * Defaults, overridable with -Djstslearning.limit.timeMs/.statements/.outputBytes
+     */
+    public static ExecutionLimits defaults() {
+        return new ExecutionLimits(
+                Long.getLong("jstslearning.limit.timeMs", 5_000L),
+                Long.getLong("jstslearning.limit.statements", 10_000_000L),
+                Integer.getInteger("jstslearning.limit.outputBytes", 1024 * 1024));
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public long getStatementLimit() {
+        return statementLimit;
+    }
+
+    public int getMaxOutputBytes() {
+        return maxOutputBytes;
+    }
+}
@@ -0,0 +1,115 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.Challenge;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded LRU/TTL cache of test-case outcomes, so pressing Submit again on
+ * unchanged code does not re-run every test case
+ */
+public class GradingCache {
+
+    // Code touching these can print something different on every run, so its results are never cached
+    private static final Pattern NONDETERMINISTIC = Pattern.compile(
+            "\\bMath\\s*\\.\\s*random\\b|\\bDate\\b|\\bperformance\\s*\\.\\s*now\\b|\\bcrypto\\b");
+
+    /**
+     * What is kept of a test case run: the verdict and what the student saw.
+     * The run's polyglot return value is dropped, since it belongs to a
+     * context that is closed once the run ends.
+     */
+    public static class Outcome {
+        private final boolean passed;
+        private final boolean success;
+        private final String output;
+        private final String error;
+        private final CodeExecutor.ExecutionResult.LimitType limitExceeded;
+
+        public Outcome(CodeExecutor.ExecutionResult result, boolean passed) {
+            this.passed = passed;
+            this.success = result.isSuccess();
+            this.output = result.getOutput();
+            this.error = result.getError();
+            this.limitExceeded = result.getLimitExceeded();
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        /**
+         * The run as the grader reports it, without a return value
+         */
+        public CodeExecutor.ExecutionResult toExecutionResult() {
+            return new CodeExecutor.ExecutionResult(success, output, error, null, limitExceeded);
+        }
+    }
+
+    private final LruCache<String, Outcome> outcomes;
+    private final AtomicLong bypasses = new AtomicLong();
+
+    public GradingCache(int maxEntries, long ttlSeconds) {
+        this.outcomes = new LruCache<>(maxEntries, ttlSeconds);
+    }
+
+    /**
+     * Defaults, overridable with -Djstslearning.gradingCache.size/.ttlSeconds
+     */
+    public static GradingCache withDefaults() {
+        return new GradingCache(
+                Integer.getInteger("jstslearning.gradingCache.size", 512),
+                Long.getLong("jstslearning.gradingCache.ttlSeconds", 600L));
+    }
+
+    /**
+     * Cache key for one test case of a submission, or null when the code is
+     * nondeterministic and must always be run. The test case's own content is
+     * part of the hash so edited lesson content never serves stale results.
+     */
+    public String key(String lessonId, int testCaseIndex, String code, Challenge.TestCase testCase) {
+        String input = testCase.getInput() != null ? testCase.getInput() : "";
+        if (NONDETERMINISTIC.matcher(code).find() || NONDETERMINISTIC.matcher(input).find()) {
+            bypasses.incrementAndGet();
+            return null;
+        }
+        String hash = SourceCache.hash(normalize(code) + '\0' + input + '\0' + testCase.getExpectedOutput());
+        return lessonId + ":" + testCaseIndex + ":" + hash;
+    }
+
+    /**
+     * Cached outcome for the key, or null on a miss or expired entry
+     */
+    public Outcome get(String key) {
+        return outcomes.get(key);
+    }
+
+    public void put(String key, CodeExecutor.ExecutionResult result, boolean passed) {
+        outcomes.put(key, new Outcome(result, passed));
+    }
+
+    public long getHits() {
+        return outcomes.getHits();
+    }
+
+    public long getMisses() {
+        return outcomes.getMisses();
+    }
+
+    public long getBypasses() {
+        return bypasses.get();
+    }
+
+    public int size() {
+        return outcomes.size();
+    }
+
+    /**
+     * Only line endings are ignored: whitespace anywhere else may sit inside a
+     * string or template literal and change what the code prints
+     */
+    static String normalize(String code) {
+        return code.replace("\r\n", "\n");
+    }
+}
@@ -0,0 +1,112 @@
+package com.jstslearning.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, synchronized LRU map with hit/miss counters and an optional
+ * time-to-live, shared by the source, transpile and grading caches
+ */
+class LruCache<K, V> {
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt; // System.nanoTime() deadline, unused without a TTL
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos; // 0 = entries never expire
+    private final Map<K, Entry<V>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    LruCache(int maxEntries) {
+        this(maxEntries, 0);
+    }
+
+    LruCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        // Access-ordered so the least recently used entry is evicted first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > LruCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached value, or null on a miss or expired entry
+     */
+    V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && isLive(entry)) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cached value, computing it outside the lock on a miss. Concurrent misses
+     * on the same key may both compute; the first value stored wins.
+     */
+    V get(K key, Supplier<V> compute) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        V computed = compute.get();
+        synchronized (entries) {
+            Entry<V> existing = entries.get(key);
+            if (existing != null && isLive(existing)) {
+                return existing.value;
+            }
+            entries.put(key, newEntry(computed));
+            return computed;
+        }
+    }
+
+    void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, newEntry(value));
+        }
+    }
+
+    private boolean isLive(Entry<V> entry) {
+        return ttlNanos == 0 || entry.expiresAt - System.nanoTime() > 0;
+    }
+
+    private Entry<V> newEntry(V value) {
+        return new Entry<>(value, ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos);
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
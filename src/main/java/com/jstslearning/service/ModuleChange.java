@@ -0,0 +1,164 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.Challenge;
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Difference between a loaded module and a freshly parsed copy of its file.
+ * Unchanged lessons in the new module are replaced by the old instances, so
+ * anything holding on to them (the current lesson, tree items) stays valid.
+ */
+public class ModuleChange {
+    private final Module module; // The module to swap in
+    private final boolean headerChanged; // Title, description, goal or language
+    private final boolean orderChanged; // Lessons added, removed or moved
+    private final List<String> addedLessonIds;
+    private final List<String> removedLessonIds;
+    private final List<String> changedLessonIds; // Same id, different content
+
+    private ModuleChange(Module module, boolean headerChanged, boolean orderChanged,
+                         List<String> added, List<String> removed, List<String> changed) {
+        this.module = module;
+        this.headerChanged = headerChanged;
+        this.orderChanged = orderChanged;
+        this.addedLessonIds = Collections.unmodifiableList(added);
+        this.removedLessonIds = Collections.unmodifiableList(removed);
+        this.changedLessonIds = Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * Compare a fully loaded module with a re-parsed one (old may be null for a new module file)
+     */
+    public static ModuleChange between(Module old, Module fresh) {
+        Map<String, Lesson> oldLessons = new HashMap<>();
+        List<String> oldOrder = new ArrayList<>();
+        if (old != null && old.getLessons() != null) {
+            for (Lesson lesson : old.getLessons()) {
+                oldLessons.put(lesson.getId(), lesson);
+                oldOrder.add(lesson.getId());
+            }
+        }
+
+        List<String> added = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        List<String> freshOrder = new ArrayList<>();
+        List<Lesson> merged = new ArrayList<>();
+        for (Lesson lesson : fresh.getLessons() != null ? fresh.getLessons() : List.<Lesson>of()) {
+            freshOrder.add(lesson.getId());
+            Lesson previous = oldLessons.get(lesson.getId());
+            if (previous == null) {
+                added.add(lesson.getId());
+                merged.add(lesson);
+            } else if (sameLesson(previous, lesson)) {
+                merged.add(previous);
+            } else {
+                changed.add(lesson.getId());
+                merged.add(lesson);
+            }
+        }
+        fresh.setLessons(merged);
+
+        List<String> removed = new ArrayList<>();
+        for (String id : oldOrder) {
+            if (!freshOrder.contains(id)) {
+                removed.add(id);
+            }
+        }
+
+        boolean headerChanged = old == null
+                || !Objects.equals(old.getTitle(), fresh.getTitle())
+                || !Objects.equals(old.getDescription(), fresh.getDescription())
+                || !Objects.equals(old.getGoal(), fresh.getGoal())
+                || !Objects.equals(old.getLanguage(), fresh.getLanguage());
+        return new ModuleChange(fresh, headerChanged, !oldOrder.equals(freshOrder), added, removed, changed);
+    }
+
+    private static boolean sameLesson(Lesson a, Lesson b) {
+        return Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getConceptAnalogy(), b.getConceptAnalogy())
+                && Objects.equals(a.getCodeExample(), b.getCodeExample())
+                && Objects.equals(a.getSyntaxBreakdown(), b.getSyntaxBreakdown())
+                && Objects.equals(a.getSolution(), b.getSolution())
+                && Objects.equals(a.getCommonStickingPoints(), b.getCommonStickingPoints())
+                && sameChallenge(a.getChallenge(), b.getChallenge());
+    }
+
+    private static boolean sameChallenge(Challenge a, Challenge b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (!Objects.equals(a.getInstructions(), b.getInstructions())
+                || !Objects.equals(a.getStarterCode(), b.getStarterCode())
+                || !Objects.equals(a.getHint(), b.getHint())) {
+            return false;
+        }
+        List<Challenge.TestCase> aTests = a.getTestCases() != null ? a.getTestCases() : List.of();
+        List<Challenge.TestCase> bTests = b.getTestCases() != null ? b.getTestCases() : List.of();
+        if (aTests.size() != bTests.size()) {
+            return false;
+        }
+        for (int i = 0; i < aTests.size(); i++) {
+            Challenge.TestCase x = aTests.get(i);
+            Challenge.TestCase y = bTests.get(i);
+            if (!Objects.equals(x.getDescription(), y.getDescription())
+                    || !Objects.equals(x.getInput(), y.getInput())
+                    || !Objects.equals(x.getExpectedOutput(), y.getExpectedOutput())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True when nothing visible differs, e.g. an editor saved without edits
+     */
+    public boolean isEmpty() {
+        return !headerChanged && !orderChanged && changedLessonIds.isEmpty();
+    }
+
+    /**
+     * Whether the module's tree node needs its children rebuilt
+     */
+    public boolean isStructureChanged() {
+        return orderChanged || !changedLessonIds.isEmpty();
+    }
+
+    public Module getModule() {
+        return module;
+    }
+
+    public boolean isHeaderChanged() {
+        return headerChanged;
+    }
+
+    public boolean isOrderChanged() {
+        return orderChanged;
+    }
+
+    public List<String> getAddedLessonIds() {
+        return addedLessonIds;
+    }
+
+    public List<String> getRemovedLessonIds() {
+        return removedLessonIds;
+    }
+
+    public List<String> getChangedLessonIds() {
+        return changedLessonIds;
+    }
+
+    @Override
+    public String toString() {
+        return "Module " + module.getId() + ": " + addedLessonIds.size() + " added, "
+                + removedLessonIds.size() + " removed, " + changedLessonIds.size() + " changed"
+                + (headerChanged ? ", header changed" : "");
+    }
+}
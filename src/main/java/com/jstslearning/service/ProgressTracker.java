@@ -1,28 +1,195 @@
 package com.jstslearning.service;
 
+import com.jstslearning.model.LessonScore;
+import com.jstslearning.model.ProgressEvent;
 import com.jstslearning.model.UserProgress;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
- * Manages user progress persistence using SQLite
+ * Manages user progress persistence using SQLite.
+ * One connection is kept open for the tracker's lifetime (WAL journal,
+ * synchronous=NORMAL) and statements are prepared once and reused.
+ * Methods are synchronized because a JDBC connection is not thread-safe.
+ *
+ * A database can hold many profiles (e.g. a class sharing one machine); the
+ * tracker's profile is the one loaded and saved when no user is named.
+ * Leaderboard and per-lesson totals are kept current by triggers.
+ *
+ * Progress loaded here logs each completion and score to an append-only
+ * event table as it happens, on the caller's thread; ProgressWriter.loadProgress
+ * queues them for its writer thread instead. Saves write a snapshot, and
+ * loading replays only the events logged after the latest snapshot.
  */
-public class ProgressTracker {
-    private static final String DB_URL = "jdbc:sqlite:user_progress.db";
-    private static final String DEFAULT_USER_ID = "default_user";
+public class ProgressTracker implements AutoCloseable {
+    public static final String DEFAULT_DB_PATH = "user_progress.db";
+    public static final String DEFAULT_USER_ID = "default_user";
 
+    /**
+     * One row of the XP leaderboard
+     */
+    public static class LeaderboardEntry {
+        private final String userId;
+        private final int totalXP;
+        private final int completedLessons;
+
+        public LeaderboardEntry(String userId, int totalXP, int completedLessons) {
+            this.userId = userId;
+            this.totalXP = totalXP;
+            this.completedLessons = completedLessons;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public int getTotalXP() {
+            return totalXP;
+        }
+
+        public int getCompletedLessons() {
+            return completedLessons;
+        }
+    }
+
+    /**
+     * How a lesson is going across all profiles in the database
+     */
+    public static class LessonDifficulty {
+        private final String lessonId;
+        private final int completions;
+        private final double completionRate; // Share of profiles that completed it
+        private final double averageAttempts; // Per profile with a recorded score
+
+        public LessonDifficulty(String lessonId, int completions, double completionRate, double averageAttempts) {
+            this.lessonId = lessonId;
+            this.completions = completions;
+            this.completionRate = completionRate;
+            this.averageAttempts = averageAttempts;
+        }
+
+        public String getLessonId() {
+            return lessonId;
+        }
+
+        public int getCompletions() {
+            return completions;
+        }
+
+        public double getCompletionRate() {
+            return completionRate;
+        }
+
+        public double getAverageAttempts() {
+            return averageAttempts;
+        }
+    }
+
+    private final String dbUrl;
+    private final String profile; // User loaded and saved when none is given
+    private Connection connection; // Opened on first use, closed by close()
+    private final Map<String, PreparedStatement> statements = new HashMap<>(); // SQL -> prepared statement
+
+    /**
+     * Tracker for -Djstslearning.db (default user_progress.db) and
+     * -Djstslearning.profile (default default_user)
+     */
     public ProgressTracker() {
+        this(Path.of(System.getProperty("jstslearning.db", DEFAULT_DB_PATH)),
+                System.getProperty("jstslearning.profile", DEFAULT_USER_ID));
+    }
+
+    public ProgressTracker(Path dbFile, String profile) {
+        Path parent = dbFile.toAbsolutePath().getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            try {
+                Files.createDirectories(parent);
+            } catch (IOException e) {
+                System.err.println("Could not create " + parent + ": " + e.getMessage());
+            }
+        }
+        this.dbUrl = "jdbc:sqlite:" + dbFile;
+        this.profile = profile != null && !profile.isBlank() ? profile : DEFAULT_USER_ID;
         initializeDatabase();
     }
 
     /**
-     * Create the database tables if they don't exist
+     * The profile loaded and saved when no user id is given
+     */
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * The shared connection, opened and configured on first use
+     */
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            connection = DriverManager.getConnection(dbUrl);
+            try (Statement stmt = connection.createStatement()) {
+                // WAL lets readers run during a write and commits without rewriting the main file;
+                // NORMAL syncs at checkpoints only, so a power cut can lose the last commits but never corrupts
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("PRAGMA synchronous=NORMAL");
+                stmt.execute("PRAGMA busy_timeout=5000");
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Prepared statement for the SQL, created once per connection
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = connection().prepareStatement(sql);
+            statements.put(sql, pstmt);
+        }
+        return pstmt;
+    }
+
+    /**
+     * Close the cached statements and the connection; a later call reopens it
      */
-    private void initializeDatabase() {
-        String createTableSQL = """
+    @Override
+    public synchronized void close() {
+        for (PreparedStatement pstmt : statements.values()) {
+            try {
+                pstmt.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing statement: " + e.getMessage());
+            }
+        }
+        statements.clear();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing database: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * Schema migrations; entry i brings a database from user_version i to i + 1.
+     * Only ever append: released databases may be at any earlier version.
+     */
+    private static final String[] MIGRATIONS = {
+        // 1: current lesson and completed lessons
+        """
             CREATE TABLE IF NOT EXISTS progress (
                 user_id TEXT PRIMARY KEY,
                 current_lesson_id TEXT,
@@ -35,11 +202,191 @@ public class ProgressTracker {
                 completed_at TEXT,
                 PRIMARY KEY (user_id, lesson_id)
             );
-        """;
+        """,
+        // 2: the rest of UserProgress: totals and streaks, lesson scores, quiz results.
+        // Per-user reads are served by the (user_id, ...) primary keys.
+        """
+            ALTER TABLE progress ADD COLUMN created_at TEXT;
+            ALTER TABLE progress ADD COLUMN total_time_spent_seconds INTEGER NOT NULL DEFAULT 0;
+            ALTER TABLE progress ADD COLUMN current_streak INTEGER NOT NULL DEFAULT 0;
+            ALTER TABLE progress ADD COLUMN longest_streak INTEGER NOT NULL DEFAULT 0;
+            ALTER TABLE progress ADD COLUMN last_study_date TEXT;
+            ALTER TABLE progress ADD COLUMN total_perfect_lessons INTEGER NOT NULL DEFAULT 0;
+            ALTER TABLE progress ADD COLUMN total_xp INTEGER NOT NULL DEFAULT 0;
+
+            CREATE TABLE lesson_scores (
+                user_id TEXT NOT NULL,
+                lesson_id TEXT NOT NULL,
+                attempts INTEGER NOT NULL,
+                score INTEGER NOT NULL,
+                time_spent_seconds INTEGER NOT NULL,
+                completed_at TEXT,
+                perfect INTEGER NOT NULL,
+                PRIMARY KEY (user_id, lesson_id)
+            ) WITHOUT ROWID;
+
+            CREATE TABLE quiz_results (
+                user_id TEXT NOT NULL,
+                quiz_id TEXT NOT NULL,
+                score INTEGER NOT NULL,
+                completed_at TEXT,
+                PRIMARY KEY (user_id, quiz_id)
+            ) WITHOUT ROWID;
+        """,
+        // 3: cross-profile queries. Indexes for per-lesson and by-date scans of completions, and
+        // aggregate tables maintained by triggers so the leaderboard and lesson difficulty read
+        // a handful of index entries instead of grouping every completion row.
+        """
+            CREATE INDEX idx_completed_lessons_lesson ON completed_lessons (lesson_id);
+            CREATE INDEX idx_completed_lessons_time ON completed_lessons (completed_at);
+
+            CREATE TABLE leaderboard (
+                user_id TEXT PRIMARY KEY,
+                total_xp INTEGER NOT NULL DEFAULT 0,
+                completed_lessons INTEGER NOT NULL DEFAULT 0
+            ) WITHOUT ROWID;
+            CREATE INDEX idx_leaderboard_xp ON leaderboard (total_xp DESC, completed_lessons DESC);
+
+            CREATE TABLE lesson_stats (
+                lesson_id TEXT PRIMARY KEY,
+                completions INTEGER NOT NULL DEFAULT 0,
+                attempts INTEGER NOT NULL DEFAULT 0,
+                scored_users INTEGER NOT NULL DEFAULT 0
+            ) WITHOUT ROWID;
+            CREATE INDEX idx_lesson_stats_completions ON lesson_stats (completions);
+
+            INSERT INTO leaderboard (user_id, total_xp, completed_lessons)
+                SELECT user_id, SUM(xp), SUM(done) FROM (
+                    SELECT user_id, total_xp AS xp, 0 AS done FROM progress
+                    UNION ALL
+                    SELECT user_id, 0, 1 FROM completed_lessons
+                ) GROUP BY user_id;
+            INSERT INTO lesson_stats (lesson_id, completions, attempts, scored_users)
+                SELECT lesson_id, SUM(done), SUM(tries), SUM(scored) FROM (
+                    SELECT lesson_id, 1 AS done, 0 AS tries, 0 AS scored FROM completed_lessons
+                    UNION ALL
+                    SELECT lesson_id, 0, attempts, 1 FROM lesson_scores
+                ) GROUP BY lesson_id;
+
+            CREATE TRIGGER progress_xp_insert AFTER INSERT ON progress
+            BEGIN
+                INSERT INTO leaderboard (user_id, total_xp) VALUES (NEW.user_id, NEW.total_xp)
+                    ON CONFLICT (user_id) DO UPDATE SET total_xp = excluded.total_xp;
+            END;
+            CREATE TRIGGER progress_xp_update AFTER UPDATE OF total_xp ON progress
+            BEGIN
+                UPDATE leaderboard SET total_xp = NEW.total_xp WHERE user_id = NEW.user_id;
+            END;
+            CREATE TRIGGER completed_lessons_insert AFTER INSERT ON completed_lessons
+            BEGIN
+                INSERT INTO leaderboard (user_id, completed_lessons) VALUES (NEW.user_id, 1)
+                    ON CONFLICT (user_id) DO UPDATE SET completed_lessons = completed_lessons + 1;
+                INSERT INTO lesson_stats (lesson_id, completions) VALUES (NEW.lesson_id, 1)
+                    ON CONFLICT (lesson_id) DO UPDATE SET completions = completions + 1;
+            END;
+            CREATE TRIGGER completed_lessons_delete AFTER DELETE ON completed_lessons
+            BEGIN
+                UPDATE leaderboard SET completed_lessons = completed_lessons - 1 WHERE user_id = OLD.user_id;
+                UPDATE lesson_stats SET completions = completions - 1 WHERE lesson_id = OLD.lesson_id;
+            END;
+            CREATE TRIGGER lesson_scores_insert AFTER INSERT ON lesson_scores
+            BEGIN
+                INSERT INTO lesson_stats (lesson_id, attempts, scored_users) VALUES (NEW.lesson_id, NEW.attempts, 1)
+                    ON CONFLICT (lesson_id) DO UPDATE SET
+                        attempts = attempts + excluded.attempts, scored_users = scored_users + 1;
+            END;
+            CREATE TRIGGER lesson_scores_update AFTER UPDATE OF attempts ON lesson_scores
+            BEGIN
+                UPDATE lesson_stats SET attempts = attempts + NEW.attempts - OLD.attempts
+                    WHERE lesson_id = NEW.lesson_id;
+            END;
+            CREATE TRIGGER lesson_scores_delete AFTER DELETE ON lesson_scores
+            BEGIN
+                UPDATE lesson_stats SET attempts = attempts - OLD.attempts, scored_users = scored_users - 1
+                    WHERE lesson_id = OLD.lesson_id;
+            END;
+        """,
+        // 4: append-only progress log. The progress tables become a snapshot as of
+        // progress.snapshot_seq; loading replays only the events logged after it.
+        """
+            CREATE TABLE progress_events (
+                seq INTEGER PRIMARY KEY,
+                user_id TEXT NOT NULL,
+                type TEXT NOT NULL,
+                item_id TEXT NOT NULL,
+                at TEXT NOT NULL,
+                attempts INTEGER NOT NULL DEFAULT 0,
+                score INTEGER NOT NULL DEFAULT 0,
+                time_spent_seconds INTEGER NOT NULL DEFAULT 0,
+                perfect INTEGER NOT NULL DEFAULT 0
+            );
+            CREATE INDEX idx_progress_events_user ON progress_events (user_id, seq);
+
+            ALTER TABLE progress ADD COLUMN snapshot_seq INTEGER NOT NULL DEFAULT 0;
+        """
+    };
+
+    /**
+     * Statements of a migration script. Each ends with ';' at the end of a line,
+     * except inside a trigger, whose body runs through its END;
+     */
+    private static List<String> splitStatements(String script) {
+        List<String> result = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inTrigger = false;
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.startsWith("CREATE TRIGGER")) {
+                inTrigger = true;
+            }
+            if (inTrigger ? trimmed.equals("END;") : trimmed.endsWith(";")) {
+                result.add(current.toString());
+                current.setLength(0);
+                inTrigger = false;
+            }
+        }
+        if (!current.toString().isBlank()) {
+            result.add(current.toString());
+        }
+        return result;
+    }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate(createTableSQL);
+    /**
+     * Bring the schema up to date, one transaction per migration
+     */
+    private synchronized void initializeDatabase() {
+        try {
+            Connection conn = connection();
+            int version;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+                version = rs.next() ? rs.getInt(1) : 0;
+            }
+            if (version > MIGRATIONS.length) {
+                System.err.println("Progress database is version " + version
+                        + ", newer than this application (" + MIGRATIONS.length + ")");
+                return;
+            }
+            for (int v = version; v < MIGRATIONS.length; v++) {
+                conn.setAutoCommit(false);
+                try (Statement stmt = conn.createStatement()) {
+                    for (String sql : splitStatements(MIGRATIONS[v])) {
+                        stmt.executeUpdate(sql);
+                    }
+                    stmt.executeUpdate("PRAGMA user_version = " + (v + 1));
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                System.out.println("Migrated progress database to version " + (v + 1));
+            }
         } catch (SQLException e) {
             System.err.println("Error initializing database: " + e.getMessage());
             e.printStackTrace();
@@ -47,98 +394,396 @@ public class ProgressTracker {
     }
 
     /**
-     * Load progress for the default user
+     * Load progress for this tracker's profile
      */
     public UserProgress loadProgress() {
-        return loadProgress(DEFAULT_USER_ID);
+        return loadProgress(profile);
     }
 
     /**
-     * Load progress for a specific user
+     * Load the whole profile for a user in one query: the progress row,
+     * completed lessons, lesson scores and quiz results, tagged by kind
      */
-    public UserProgress loadProgress(String userId) {
+    public synchronized UserProgress loadProgress(String userId) {
         UserProgress progress = new UserProgress(userId);
 
-        // Load basic progress
-        String progressSQL = "SELECT current_lesson_id, last_accessed_at FROM progress WHERE user_id = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(progressSQL)) {
-            pstmt.setString(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                progress.setCurrentLessonId(rs.getString("current_lesson_id"));
-                String lastAccessed = rs.getString("last_accessed_at");
-                if (lastAccessed != null) {
-                    progress.setLastAccessedAt(LocalDateTime.parse(lastAccessed));
+        String profileSQL = """
+            SELECT 'P' AS kind, current_lesson_id AS id, last_accessed_at AS t1, created_at AS t2,
+                   last_study_date AS t3, total_time_spent_seconds AS n1, current_streak AS n2,
+                   longest_streak AS n3, total_perfect_lessons AS n4, total_xp AS n5, snapshot_seq AS n6
+              FROM progress WHERE user_id = ?
+            UNION ALL
+            SELECT 'C', lesson_id, completed_at, NULL, NULL, 0, 0, 0, 0, 0, 0
+              FROM completed_lessons WHERE user_id = ?
+            UNION ALL
+            SELECT 'S', lesson_id, completed_at, NULL, NULL, attempts, score, time_spent_seconds, perfect, 0, 0
+              FROM lesson_scores WHERE user_id = ?
+            UNION ALL
+            SELECT 'Q', quiz_id, completed_at, NULL, NULL, score, 0, 0, 0, 0, 0
+              FROM quiz_results WHERE user_id = ?
+        """;
+        Set<String> completedLessons = new HashSet<>();
+        Map<String, LocalDateTime> completionTimes = new HashMap<>();
+        Map<String, LessonScore> lessonScores = new HashMap<>();
+        Set<String> completedQuizzes = new HashSet<>();
+        Map<String, Integer> quizScores = new HashMap<>();
+        Map<String, LocalDateTime> quizCompletionTimes = new HashMap<>();
+        try {
+            PreparedStatement pstmt = prepare(profileSQL);
+            for (int i = 1; i <= 4; i++) {
+                pstmt.setString(i, userId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String id = rs.getString("id");
+                    LocalDateTime at = parseDateTime(rs.getString("t1"));
+                    switch (rs.getString("kind")) {
+                        case "P":
+                            progress.restoreCurrentLesson(id, at != null ? at : progress.getLastAccessedAt());
+                            LocalDateTime createdAt = parseDateTime(rs.getString("t2"));
+                            if (createdAt != null) {
+                                progress.setCreatedAt(createdAt);
+                            }
+                            String lastStudyDate = rs.getString("t3");
+                            progress.setLastStudyDate(lastStudyDate != null ? LocalDate.parse(lastStudyDate) : null);
+                            progress.setTotalTimeSpentSeconds(rs.getLong("n1"));
+                            progress.setCurrentStreak(rs.getInt("n2"));
+                            progress.setLongestStreak(rs.getInt("n3"));
+                            progress.setTotalPerfectLessons(rs.getInt("n4"));
+                            progress.setTotalXP(rs.getInt("n5"));
+                            progress.setEventSeq(rs.getLong("n6"));
+                            break;
+                        case "C":
+                            completedLessons.add(id);
+                            if (at != null) {
+                                completionTimes.put(id, at);
+                            }
+                            break;
+                        case "S":
+                            LessonScore score = new LessonScore(id);
+                            score.setAttempts(rs.getInt("n1"));
+                            score.setScore(rs.getInt("n2"));
+                            score.setTimeSpent(rs.getLong("n3"));
+                            score.setPerfect(rs.getInt("n4") != 0);
+                            score.setCompletedAt(at);
+                            lessonScores.put(id, score);
+                            break;
+                        case "Q":
+                            completedQuizzes.add(id);
+                            quizScores.put(id, rs.getInt("n1"));
+                            if (at != null) {
+                                quizCompletionTimes.put(id, at);
+                            }
+                            break;
+                        default:
+                            break;
+                    }
                 }
             }
         } catch (SQLException e) {
             System.err.println("Error loading progress: " + e.getMessage());
         }
 
-        // Load completed lessons
-        String completedSQL = "SELECT lesson_id FROM completed_lessons WHERE user_id = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(completedSQL)) {
-            pstmt.setString(1, userId);
-            ResultSet rs = pstmt.executeQuery();
+        progress.setCompletedLessons(completedLessons);
+        progress.setCompletionTimes(completionTimes);
+        progress.setLessonScores(lessonScores);
+        progress.setCompletedQuizzes(completedQuizzes);
+        progress.setQuizScores(quizScores);
+        progress.setQuizCompletionTimes(quizCompletionTimes);
 
-            Set<String> completedLessons = new HashSet<>();
-            while (rs.next()) {
-                completedLessons.add(rs.getString("lesson_id"));
+        // Events logged after the snapshot; replaying marks them unsaved, so the next save snapshots them
+        for (ProgressEvent event : loadEvents(userId, progress.getEventSeq())) {
+            progress.replay(event);
+        }
+        String user = userId;
+        progress.setEventListener(event -> appendEvent(user, event));
+        return progress;
+    }
+
+    /**
+     * Append one event to the progress log and set its sequence number.
+     * A failed append is not fatal: the change still reaches the snapshot on the next save.
+     */
+    public synchronized void appendEvent(String userId, ProgressEvent event) {
+        String sql = """
+            INSERT INTO progress_events (user_id, type, item_id, at, attempts, score, time_spent_seconds, perfect)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            RETURNING seq
+        """;
+        try {
+            PreparedStatement pstmt = prepare(sql);
+            pstmt.setString(1, userId);
+            pstmt.setString(2, event.getType().name());
+            pstmt.setString(3, event.getItemId());
+            pstmt.setString(4, event.getAt().toString());
+            pstmt.setInt(5, event.getAttempts());
+            pstmt.setInt(6, event.getScore());
+            pstmt.setLong(7, event.getTimeSpent());
+            pstmt.setInt(8, event.isPerfect() ? 1 : 0);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    event.setSeq(rs.getLong(1));
+                }
             }
-            progress.setCompletedLessons(completedLessons);
         } catch (SQLException e) {
-            System.err.println("Error loading completed lessons: " + e.getMessage());
+            System.err.println("Error logging progress event: " + e.getMessage());
         }
+    }
 
-        return progress;
+    /**
+     * A user's logged events after the given sequence number, oldest first (0 for the full history)
+     */
+    public synchronized List<ProgressEvent> loadEvents(String userId, long afterSeq) {
+        String sql = """
+            SELECT seq, type, item_id, at, attempts, score, time_spent_seconds, perfect
+              FROM progress_events WHERE user_id = ? AND seq > ? ORDER BY seq
+        """;
+        List<ProgressEvent> events = new ArrayList<>();
+        try {
+            PreparedStatement pstmt = prepare(sql);
+            pstmt.setString(1, userId);
+            pstmt.setLong(2, afterSeq);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ProgressEvent event = new ProgressEvent(ProgressEvent.Type.valueOf(rs.getString("type")),
+                            rs.getString("item_id"), LocalDateTime.parse(rs.getString("at")));
+                    event.setSeq(rs.getLong("seq"));
+                    event.setAttempts(rs.getInt("attempts"));
+                    event.setScore(rs.getInt("score"));
+                    event.setTimeSpent(rs.getLong("time_spent_seconds"));
+                    event.setPerfect(rs.getInt("perfect") != 0);
+                    events.add(event);
+                }
+            }
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("Error loading progress events: " + e.getMessage());
+        }
+        return events;
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+
+    /**
+     * Save what changed since the last save (current lesson, new completions,
+     * scores, quiz results, totals) in one transaction. Completions keep the
+     * time they were recorded; rows saved earlier are not written again.
+     */
+    public synchronized void saveProgress(UserProgress progress) {
+        UserProgress.Changes changes = progress.drainChanges();
+        if (!saveChanges(progress.getUserId(), changes)) {
+            // Keep the changes pending so the next save retries them
+            progress.restoreChanges(changes);
+        }
     }
 
     /**
-     * Save user progress
+     * Write drained changes in one transaction, batching rows per table; false if nothing was written
      */
-    public void saveProgress(UserProgress progress) {
-        String userId = progress.getUserId() != null ? progress.getUserId() : DEFAULT_USER_ID;
+    public synchronized boolean saveChanges(String userId, UserProgress.Changes changes) {
+        if (userId == null) {
+            userId = profile;
+        }
+        if (changes.isEmpty()) {
+            return true;
+        }
 
-        // Save basic progress
-        String progressSQL = """
-            INSERT OR REPLACE INTO progress (user_id, current_lesson_id, last_accessed_at)
+        String lessonSQL = """
+            INSERT INTO progress (user_id, current_lesson_id, last_accessed_at, created_at)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (user_id) DO UPDATE SET
+                current_lesson_id = excluded.current_lesson_id,
+                last_accessed_at = excluded.last_accessed_at
+        """;
+        String statsSQL = """
+            INSERT INTO progress (user_id, created_at, total_time_spent_seconds, current_streak,
+                                  longest_streak, last_study_date, total_perfect_lessons, total_xp)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id) DO UPDATE SET
+                created_at = COALESCE(progress.created_at, excluded.created_at),
+                total_time_spent_seconds = excluded.total_time_spent_seconds,
+                current_streak = excluded.current_streak,
+                longest_streak = excluded.longest_streak,
+                last_study_date = excluded.last_study_date,
+                total_perfect_lessons = excluded.total_perfect_lessons,
+                total_xp = excluded.total_xp
+        """;
+        String snapshotSQL = """
+            INSERT INTO progress (user_id, snapshot_seq) VALUES (?, ?)
+            ON CONFLICT (user_id) DO UPDATE SET
+                snapshot_seq = MAX(progress.snapshot_seq, excluded.snapshot_seq)
+        """;
+        String completedSQL = """
+            INSERT OR IGNORE INTO completed_lessons (user_id, lesson_id, completed_at)
             VALUES (?, ?, ?)
         """;
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(progressSQL)) {
-            pstmt.setString(1, userId);
-            pstmt.setString(2, progress.getCurrentLessonId());
-            pstmt.setString(3, progress.getLastAccessedAt().toString());
-            pstmt.executeUpdate();
+        // An upsert rather than REPLACE, so the update trigger sees the old attempt count
+        String scoreSQL = """
+            INSERT INTO lesson_scores
+                (user_id, lesson_id, attempts, score, time_spent_seconds, completed_at, perfect)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, lesson_id) DO UPDATE SET
+                attempts = excluded.attempts,
+                score = excluded.score,
+                time_spent_seconds = excluded.time_spent_seconds,
+                completed_at = excluded.completed_at,
+                perfect = excluded.perfect
+        """;
+        String quizSQL = """
+            INSERT INTO quiz_results (user_id, quiz_id, score, completed_at)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (user_id, quiz_id) DO UPDATE SET score = excluded.score
+        """;
+        try {
+            Connection conn = connection();
+            conn.setAutoCommit(false);
+            try {
+                if (changes.isCurrentLessonChanged()) {
+                    PreparedStatement pstmt = prepare(lessonSQL);
+                    pstmt.setString(1, userId);
+                    pstmt.setString(2, changes.getCurrentLessonId());
+                    pstmt.setString(3, changes.getLastAccessedAt().toString());
+                    pstmt.setString(4, changes.getLastAccessedAt().toString());
+                    pstmt.executeUpdate();
+                }
+
+                UserProgress.Stats stats = changes.getStats();
+                if (stats != null) {
+                    PreparedStatement pstmt = prepare(statsSQL);
+                    pstmt.setString(1, userId);
+                    pstmt.setString(2, stats.getCreatedAt() != null ? stats.getCreatedAt().toString() : null);
+                    pstmt.setLong(3, stats.getTotalTimeSpentSeconds());
+                    pstmt.setInt(4, stats.getCurrentStreak());
+                    pstmt.setInt(5, stats.getLongestStreak());
+                    pstmt.setString(6, stats.getLastStudyDate() != null ? stats.getLastStudyDate().toString() : null);
+                    pstmt.setInt(7, stats.getTotalPerfectLessons());
+                    pstmt.setInt(8, stats.getTotalXP());
+                    pstmt.executeUpdate();
+                }
+
+                if (!changes.getNewCompletions().isEmpty()) {
+                    PreparedStatement pstmt = prepare(completedSQL);
+                    for (Map.Entry<String, LocalDateTime> completion : changes.getNewCompletions().entrySet()) {
+                        LocalDateTime completedAt = completion.getValue() != null
+                                ? completion.getValue() : LocalDateTime.now();
+                        pstmt.setString(1, userId);
+                        pstmt.setString(2, completion.getKey());
+                        pstmt.setString(3, completedAt.toString());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+
+                if (!changes.getLessonScores().isEmpty()) {
+                    PreparedStatement pstmt = prepare(scoreSQL);
+                    for (LessonScore score : changes.getLessonScores().values()) {
+                        pstmt.setString(1, userId);
+                        pstmt.setString(2, score.getLessonId());
+                        pstmt.setInt(3, score.getAttempts());
+                        pstmt.setInt(4, score.getScore());
+                        pstmt.setLong(5, score.getTimeSpent());
+                        pstmt.setString(6, score.getCompletedAt() != null ? score.getCompletedAt().toString() : null);
+                        pstmt.setInt(7, score.isPerfect() ? 1 : 0);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+
+                if (!changes.getQuizScores().isEmpty()) {
+                    PreparedStatement pstmt = prepare(quizSQL);
+                    for (Map.Entry<String, Integer> quiz : changes.getQuizScores().entrySet()) {
+                        LocalDateTime completedAt = changes.getQuizCompletions().get(quiz.getKey());
+                        pstmt.setString(1, userId);
+                        pstmt.setString(2, quiz.getKey());
+                        pstmt.setInt(3, quiz.getValue());
+                        pstmt.setString(4, completedAt != null ? completedAt.toString() : null);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+
+                if (changes.getEventSeq() > 0) {
+                    // The tables now reflect every event up to this one
+                    PreparedStatement pstmt = prepare(snapshotSQL);
+                    pstmt.setString(1, userId);
+                    pstmt.setLong(2, changes.getEventSeq());
+                    pstmt.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             System.err.println("Error saving progress: " + e.getMessage());
+            return false;
         }
+        return true;
+    }
 
-        // Save completed lessons
-        String completedSQL = """
-            INSERT OR IGNORE INTO completed_lessons (user_id, lesson_id, completed_at)
-            VALUES (?, ?, ?)
+    /**
+     * Profiles with the most XP, most completed lessons breaking ties
+     */
+    public synchronized List<LeaderboardEntry> getLeaderboard(int limit) {
+        String sql = """
+            SELECT user_id, total_xp, completed_lessons FROM leaderboard
+            ORDER BY total_xp DESC, completed_lessons DESC
+            LIMIT ?
         """;
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(completedSQL)) {
-            for (String lessonId : progress.getCompletedLessons()) {
-                pstmt.setString(1, userId);
-                pstmt.setString(2, lessonId);
-                pstmt.setString(3, LocalDateTime.now().toString());
-                pstmt.executeUpdate();
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        try {
+            PreparedStatement pstmt = prepare(sql);
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new LeaderboardEntry(rs.getString("user_id"),
+                            rs.getInt("total_xp"), rs.getInt("completed_lessons")));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading leaderboard: " + e.getMessage());
+        }
+        return entries;
+    }
+
+    /**
+     * Started lessons that the fewest profiles have completed, most attempts per profile breaking ties
+     */
+    public synchronized List<LessonDifficulty> getHardestLessons(int limit) {
+        String sql = """
+            SELECT lesson_id, completions,
+                   CAST(attempts AS REAL) / MAX(scored_users, 1) AS average_attempts,
+                   (SELECT COUNT(*) FROM leaderboard) AS profiles
+              FROM lesson_stats
+             ORDER BY completions ASC, average_attempts DESC
+             LIMIT ?
+        """;
+        List<LessonDifficulty> lessons = new ArrayList<>();
+        try {
+            PreparedStatement pstmt = prepare(sql);
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int completions = rs.getInt("completions");
+                    int profiles = rs.getInt("profiles");
+                    lessons.add(new LessonDifficulty(rs.getString("lesson_id"), completions,
+                            profiles > 0 ? (double) completions / profiles : 0,
+                            rs.getDouble("average_attempts")));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Error saving completed lessons: " + e.getMessage());
+            System.err.println("Error loading lesson statistics: " + e.getMessage());
         }
+        return lessons;
     }
 
     /**
      * Mark a lesson as complete
      */
-    public void markLessonComplete(String userId, String lessonId) {
+    public synchronized void markLessonComplete(String userId, String lessonId) {
         UserProgress progress = loadProgress(userId);
         progress.markLessonComplete(lessonId);
         saveProgress(progress);
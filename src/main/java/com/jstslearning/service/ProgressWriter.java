@@ -0,0 +1,208 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.ProgressEvent;
+import com.jstslearning.model.UserProgress;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for progress: callers hand over a snapshot of the
+ * changes and return immediately; one writer thread coalesces everything that
+ * arrives within the durability window into a single transaction.
+ *
+ * -Djstslearning.progress.maxLossMs (default 1000) bounds how much progress a
+ * crash can lose; 0 writes through synchronously. The queue holds
+ * -Djstslearning.progress.queueSize entries (default 1024); when it is full,
+ * save() blocks until the writer catches up.
+ *
+ * Progress loaded through here logs its events on the same queue, so the
+ * caller never waits on the database; the writer appends queued events
+ * before the snapshot that covers them.
+ */
+public class ProgressWriter implements AutoCloseable {
+
+    /**
+     * One queued save, event to log, or flush request (when changes and event are null)
+     */
+    private static class Pending {
+        private final String userId;
+        private final UserProgress.Changes changes;
+        private final ProgressEvent event;
+        private final CompletableFuture<Void> flushed;
+
+        Pending(String userId, UserProgress.Changes changes, ProgressEvent event, CompletableFuture<Void> flushed) {
+            this.userId = userId;
+            this.changes = changes;
+            this.event = event;
+            this.flushed = flushed;
+        }
+    }
+
+    private final ProgressTracker tracker;
+    private final long maxLossMs;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private final Map<String, UserProgress.Changes> unwritten = new LinkedHashMap<>(); // Writer thread only
+    private volatile boolean closed;
+
+    public ProgressWriter(ProgressTracker tracker) {
+        this(tracker,
+                Long.getLong("jstslearning.progress.maxLossMs", 1000),
+                Integer.getInteger("jstslearning.progress.queueSize", 1024));
+    }
+
+    public ProgressWriter(ProgressTracker tracker, long maxLossMs, int queueSize) {
+        this.tracker = tracker;
+        this.maxLossMs = Math.max(0, maxLossMs);
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        if (this.maxLossMs > 0) {
+            writer = new Thread(this::writeLoop, "progress-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * Load the tracker's profile with its events logged through this writer
+     */
+    public UserProgress loadProgress() {
+        UserProgress progress = tracker.loadProgress();
+        String userId = progress.getUserId() != null ? progress.getUserId() : tracker.getProfile();
+        progress.setEventListener(event -> log(userId, event));
+        return progress;
+    }
+
+    /**
+     * Append an event to the progress log within the durability window
+     */
+    public void log(String userId, ProgressEvent event) {
+        if (writer == null || closed) {
+            tracker.appendEvent(userId, event);
+            return;
+        }
+        enqueue(new Pending(userId, null, event, null));
+    }
+
+    /**
+     * Take the progress's unsaved changes and persist them within the durability window
+     */
+    public void save(UserProgress progress) {
+        UserProgress.Changes changes = progress.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        String userId = progress.getUserId() != null ? progress.getUserId() : tracker.getProfile();
+        if (writer == null || closed) {
+            // Write-through mode, or after close(): save on the caller's thread
+            if (!tracker.saveChanges(userId, changes)) {
+                progress.restoreChanges(changes);
+            }
+            return;
+        }
+        enqueue(new Pending(userId, changes, null, null));
+    }
+
+    /**
+     * Write everything queued so far and wait until it is on disk
+     */
+    public void flush() {
+        if (writer == null || !writer.isAlive()) {
+            return;
+        }
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        enqueue(new Pending(null, null, null, flushed));
+        flushed.join();
+    }
+
+    /**
+     * Flush and stop the writer thread; later saves are written synchronously
+     */
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void enqueue(Pending pending) {
+        try {
+            // Blocks when the writer has fallen behind: backpressure instead of unbounded memory
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Progress save interrupted; it will be retried on the next save");
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+                // Collect whatever else arrives within the window, unless someone is waiting on a flush
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLossMs);
+                while (batch.get(batch.size() - 1).flushed == null) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch);
+            } catch (InterruptedException e) {
+                if (closed) {
+                    queue.drainTo(batch);
+                }
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Log the batch's events, then coalesce its saves per user and write them;
+     * failed writes are kept and retried with the next batch
+     */
+    private void write(List<Pending> batch) {
+        List<CompletableFuture<Void>> flushes = new ArrayList<>();
+        Map<String, Long> loggedSeq = new HashMap<>(); // User -> last event appended so far in queue order
+        for (Pending pending : batch) {
+            if (pending.event != null) {
+                tracker.appendEvent(pending.userId, pending.event);
+                if (pending.event.getSeq() > 0) {
+                    loggedSeq.put(pending.userId, pending.event.getSeq());
+                }
+            } else if (pending.changes != null) {
+                // A save includes every event queued before it, so its snapshot covers them
+                UserProgress.Changes changes = pending.changes.withEventSeq(loggedSeq.getOrDefault(pending.userId, 0L));
+                unwritten.merge(pending.userId, changes, UserProgress.Changes::mergedWith);
+            } else {
+                flushes.add(pending.flushed);
+            }
+        }
+
+        unwritten.entrySet().removeIf(entry -> tracker.saveChanges(entry.getKey(), entry.getValue()));
+        if (!unwritten.isEmpty()) {
+            System.err.println("Progress for " + unwritten.size() + " user(s) not saved yet; will retry");
+        }
+        flushes.forEach(flushed -> flushed.complete(null));
+    }
+}
@@ -0,0 +1,279 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over lesson text (title, analogy, code example, breakdown,
+ * sticking points) for prefix and ranked queries. Terms are kept sorted so a
+ * prefix is one binary search; scores accumulate into an array per lesson.
+ * Can be cached between launches (keyed by a content fingerprint) in a plain
+ * binary format; see writeTo.
+ */
+public class SearchIndex {
+    private static final int MAGIC = 0x4A535449; // "JSTI"
+    private static final int VERSION = 1;
+
+    // Matches in a title count for more than matches in the body text
+    private static final float TITLE_WEIGHT = 4f;
+    private static final float BODY_WEIGHT = 1f;
+    // Prefix-only matches rank below exact word matches
+    private static final float PREFIX_WEIGHT = 0.8f;
+
+    /**
+     * One ranked result
+     */
+    public static class Hit {
+        private final String lessonId;
+        private final float score;
+
+        public Hit(String lessonId, float score) {
+            this.lessonId = lessonId;
+            this.score = score;
+        }
+
+        public String getLessonId() {
+            return lessonId;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+
+    private final String fingerprint; // Identifies the content the index was built from
+    private final String[] lessonIds; // Lesson number -> id, in course order
+    private final String[] terms; // Sorted
+    private final int[][] postingLessons; // Per term: lesson numbers containing it
+    private final float[][] postingWeights; // Per term: weighted frequency * idf, parallel to postingLessons
+
+    private SearchIndex(String fingerprint, String[] lessonIds, String[] terms,
+                        int[][] postingLessons, float[][] postingWeights) {
+        this.fingerprint = fingerprint;
+        this.lessonIds = lessonIds;
+        this.terms = terms;
+        this.postingLessons = postingLessons;
+        this.postingWeights = postingWeights;
+    }
+
+    /**
+     * Build the index from fully loaded modules
+     */
+    public static SearchIndex build(List<Module> modules, String fingerprint) {
+        List<String> ids = new ArrayList<>();
+        // term -> (lesson number -> weighted frequency)
+        TreeMap<String, Map<Integer, Float>> frequencies = new TreeMap<>();
+        for (Module module : modules) {
+            for (Lesson lesson : module.getLessons()) {
+                int number = ids.size();
+                ids.add(lesson.getId());
+                addText(frequencies, number, lesson.getTitle(), TITLE_WEIGHT);
+                addText(frequencies, number, lesson.getConceptAnalogy(), BODY_WEIGHT);
+                addText(frequencies, number, lesson.getCodeExample(), BODY_WEIGHT);
+                addText(frequencies, number, lesson.getSyntaxBreakdown(), BODY_WEIGHT);
+                addText(frequencies, number, lesson.getCommonStickingPoints(), BODY_WEIGHT);
+            }
+        }
+
+        int lessonCount = ids.size();
+        String[] terms = new String[frequencies.size()];
+        int[][] lessons = new int[terms.length][];
+        float[][] weights = new float[terms.length][];
+        int t = 0;
+        for (Map.Entry<String, Map<Integer, Float>> entry : frequencies.entrySet()) {
+            Map<Integer, Float> postings = entry.getValue();
+            // Rare terms say more about a lesson than ones found everywhere
+            float idf = (float) Math.log(1.0 + (double) lessonCount / postings.size());
+            terms[t] = entry.getKey();
+            lessons[t] = new int[postings.size()];
+            weights[t] = new float[postings.size()];
+            int p = 0;
+            for (Map.Entry<Integer, Float> posting : new TreeMap<>(postings).entrySet()) {
+                lessons[t][p] = posting.getKey();
+                // Dampen raw counts so long lessons do not win by volume alone
+                weights[t][p] = (float) (1.0 + Math.log(posting.getValue())) * idf;
+                p++;
+            }
+            t++;
+        }
+        return new SearchIndex(fingerprint, ids.toArray(new String[0]), terms, lessons, weights);
+    }
+
+    private static void addText(Map<String, Map<Integer, Float>> frequencies, int lesson, String text, float weight) {
+        if (text == null) {
+            return;
+        }
+        for (String term : tokenize(text)) {
+            frequencies.computeIfAbsent(term, k -> new HashMap<>()).merge(lesson, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Lowercase words and numbers of at least two characters
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= 2) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Lessons matching every word of the query, best first. Each query word
+     * matches whole words and, with a lower weight, words it is a prefix of,
+     * so results update sensibly while the user is still typing.
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            // Single characters are not indexed, but still a useful prefix
+            String trimmed = query.trim().toLowerCase(Locale.ROOT);
+            if (trimmed.isEmpty()) {
+                return List.of();
+            }
+            words = List.of(trimmed);
+        }
+
+        float[] scores = new float[lessonIds.length];
+        int[] matchedWords = new int[lessonIds.length];
+        for (String word : words) {
+            float[] wordScores = new float[lessonIds.length];
+            int from = lowerBound(word);
+            for (int t = from; t < terms.length && terms[t].startsWith(word); t++) {
+                float factor = terms[t].length() == word.length() ? 1f : PREFIX_WEIGHT;
+                for (int p = 0; p < postingLessons[t].length; p++) {
+                    wordScores[postingLessons[t][p]] += postingWeights[t][p] * factor;
+                }
+            }
+            for (int l = 0; l < scores.length; l++) {
+                if (wordScores[l] > 0) {
+                    scores[l] += wordScores[l];
+                    matchedWords[l]++;
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (int l = 0; l < scores.length; l++) {
+            if (matchedWords[l] == words.size()) {
+                hits.add(new Hit(lessonIds[l], scores[l]));
+            }
+        }
+        hits.sort((a, b) -> Float.compare(b.score, a.score));
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    /**
+     * Index of the first term that is not less than the key
+     */
+    private int lowerBound(String key) {
+        int found = Arrays.binarySearch(terms, key);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    /**
+     * Write the index as: magic "JSTI", version, fingerprint, lesson count and
+     * ids, term count and per term the term, posting count, lesson numbers
+     * and weights. Plain data only, so reading a planted file cannot run code.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(fingerprint);
+        data.writeInt(lessonIds.length);
+        for (String lessonId : lessonIds) {
+            data.writeUTF(lessonId);
+        }
+        data.writeInt(terms.length);
+        for (int t = 0; t < terms.length; t++) {
+            data.writeUTF(terms[t]);
+            data.writeInt(postingLessons[t].length);
+            for (int p = 0; p < postingLessons[t].length; p++) {
+                data.writeInt(postingLessons[t][p]);
+                data.writeFloat(postingWeights[t][p]);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Read an index written by writeTo, rejecting anything malformed with an IOException
+     */
+    public static SearchIndex readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a search index");
+        }
+        String fingerprint = data.readUTF();
+        String[] lessonIds = new String[count(data.readInt())];
+        for (int l = 0; l < lessonIds.length; l++) {
+            lessonIds[l] = data.readUTF();
+        }
+        String[] terms = new String[count(data.readInt())];
+        int[][] lessons = new int[terms.length][];
+        float[][] weights = new float[terms.length][];
+        for (int t = 0; t < terms.length; t++) {
+            terms[t] = data.readUTF();
+            if (t > 0 && terms[t - 1].compareTo(terms[t]) >= 0) {
+                throw new IOException("Search index terms out of order");
+            }
+            int postings = count(data.readInt());
+            if (postings > lessonIds.length) {
+                throw new IOException("Corrupt search index postings");
+            }
+            lessons[t] = new int[postings];
+            weights[t] = new float[postings];
+            for (int p = 0; p < postings; p++) {
+                int lesson = data.readInt();
+                if (lesson < 0 || lesson >= lessonIds.length) {
+                    throw new IOException("Corrupt search index postings");
+                }
+                lessons[t][p] = lesson;
+                weights[t][p] = data.readFloat();
+            }
+        }
+        return new SearchIndex(fingerprint, lessonIds, terms, lessons, weights);
+    }
+
+    /**
+     * A count read from the file, bounded so a corrupt header cannot force a huge allocation
+     */
+    private static int count(int value) throws IOException {
+        if (value < 0 || value > 1_000_000) {
+            throw new IOException("Corrupt search index");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,67 @@
+package com.jstslearning.service;
+
+import org.graalvm.polyglot.Source;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content-addressed cache of GraalVM Source objects.
+ * Handing the engine the same cached Source for the same text lets it reuse
+ * the parsed AST and compiled code across contexts instead of parsing again.
+ */
+public class SourceCache {
+    private final LruCache<String, Source> sources;
+
+    public SourceCache(int maxEntries) {
+        this.sources = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * Default size, overridable with -Djstslearning.sourceCache.size
+     */
+    public static SourceCache withDefaultSize() {
+        return new SourceCache(Integer.getInteger("jstslearning.sourceCache.size", 256));
+    }
+
+    /**
+     * Get the cached Source for this JavaScript text, building it on first use
+     */
+    public Source get(String code) {
+        String hash = hash(code);
+        return sources.get(hash, () -> Source.newBuilder("js", code, "code-" + hash.substring(0, 12) + ".js")
+                .cached(true)
+                .buildLiteral());
+    }
+
+    public long getHits() {
+        return sources.getHits();
+    }
+
+    public long getMisses() {
+        return sources.getMisses();
+    }
+
+    public int size() {
+        return sources.size();
+    }
+
+    /**
+     * SHA-256 of the text, hex encoded
+     */
+    static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                   .append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.jstslearning.service;
+
+/**
+ * Content-addressed cache from TypeScript source to stripped JavaScript,
+ * so re-running unchanged code (or each test case of one submission) never
+ * transpiles the same text twice
+ */
+public class TranspileCache {
+    private final LruCache<String, TypeStripper.Result> results;
+
+    public TranspileCache(int maxEntries) {
+        this.results = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * Default size, overridable with -Djstslearning.transpileCache.size
+     */
+    public static TranspileCache withDefaultSize() {
+        return new TranspileCache(Integer.getInteger("jstslearning.transpileCache.size", 256));
+    }
+
+    /**
+     * Stripped JavaScript for this TypeScript text, transpiling on first use.
+     * Stripping is stateless, so concurrent misses on the same text are harmless.
+     */
+    public TypeStripper.Result get(String tsCode) {
+        return results.get(SourceCache.hash(tsCode), () -> TypeStripper.strip(tsCode));
+    }
+
+    public long getHits() {
+        return results.getHits();
+    }
+
+    public long getMisses() {
+        return results.getMisses();
+    }
+
+    /**
+     * Fraction of lookups served from the cache, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        return results.size();
+    }
+}
@@ -1,139 +1,145 @@
 package com.jstslearning.service;
 
-import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.PolyglotException;
-import org.graalvm.polyglot.Value;
-
-import java.io.ByteArrayOutputStream;
+import java.util.function.UnaryOperator;
 
 /**
- * Executes TypeScript code by transpiling to JavaScript using GraalVM
- * Supports TypeScript 5.7 syntax
+ * Executes TypeScript code by stripping its types and running the JavaScript
+ * Supports TypeScript 5.7 syntax (see {@link TypeStripper} for what is stripped)
+ *
+ * Thread-safe: stripping is stateless, the transpile cache is synchronized and
+ * runs go through the shared executor's context pool.
  */
 public class TypeScriptExecutor {
 
-    // Embedded simple TypeScript transpiler (strips types for basic support)
-    private static final String TS_TRANSPILER = """
-        function transpileTypeScript(code) {
-            // Simple type-stripping transpiler for basic TypeScript support
-            // Handles: type annotations, interfaces, enums, as assertions
-
-            let result = code;
-
-            // Remove interface declarations
-            result = result.replace(/interface\\s+\\w+\\s*\\{[^}]*\\}/g, '');
-
-            // Remove type declarations
-            result = result.replace(/type\\s+\\w+\\s*=\\s*[^;]+;/g, '');
-
-            // Remove enum declarations (convert to object)
-            result = result.replace(/enum\\s+(\\w+)\\s*\\{([^}]*)\\}/g, function(match, name, body) {
-                let entries = body.split(',').map(e => {
-                    let parts = e.trim().split('=');
-                    if (parts.length === 2) {
-                        return parts[0].trim() + ': ' + parts[1].trim();
-                    } else if (e.trim()) {
-                        return e.trim() + ': "' + e.trim() + '"';
-                    }
-                    return '';
-                }).filter(e => e).join(', ');
-                return 'const ' + name + ' = { ' + entries + ' };';
-            });
-
-            // Remove variable type annotations: let x: number = 5
-            result = result.replace(/(let|const|var)\\s+(\\w+)\\s*:\\s*[^=]+=/g, '$1 $2 =');
-
-            // Remove function parameter types: function foo(x: number)
-            result = result.replace(/(\\w+)\\s*:\\s*[^,)]+/g, '$1');
-
-            // Remove function return type: ): number {
-            result = result.replace(/\\)\\s*:\\s*[^{]+\\{/g, ') {');
-
-            // Remove arrow function return types: (): number =>
-            result = result.replace(/\\)\\s*:\\s*[^=]+=>/g, ') =>');
-
-            // Remove as Type assertions
-            result = result.replace(/\\s+as\\s+\\w+/g, '');
+    private final CodeExecutor jsExecutor;
+    private final TranspileCache cache;
 
-            // Remove generic type parameters: Array<string>, Map<K, V>
-            result = result.replace(/<[^>]+>/g, '');
+    public TypeScriptExecutor() {
+        this(new CodeExecutor());
+    }
 
-            // Remove readonly keyword
-            result = result.replace(/\\breadonly\\s+/g, '');
+    /**
+     * Share an existing executor (and its context pool) for running the transpiled code
+     */
+    public TypeScriptExecutor(CodeExecutor jsExecutor) {
+        this(jsExecutor, TranspileCache.withDefaultSize());
+    }
 
-            // Remove public/private/protected keywords
-            result = result.replace(/\\b(public|private|protected)\\s+/g, '');
+    public TypeScriptExecutor(CodeExecutor jsExecutor, TranspileCache cache) {
+        this.jsExecutor = jsExecutor;
+        this.cache = cache;
+    }
 
-            // Remove ! non-null assertions
-            result = result.replace(/!(\\.|\\[|;|,|\\)|\\s)/g, '$1');
+    /**
+     * Strip TypeScript to JavaScript, served from the cache when the text was seen before.
+     * Offsets and line numbers are preserved except after generated code (enums,
+     * parameter properties); run results map error positions back through the Result.
+     */
+    public TypeStripper.Result transpile(String tsCode) {
+        return cache.get(tsCode);
+    }
 
-            // Remove ? optional chaining on types (but keep runtime optional chaining)
-            result = result.replace(/(\\w+)\\?\\s*:/g, '$1:');
+    /**
+     * Execute TypeScript code
+     */
+    public CodeExecutor.ExecutionResult execute(String tsCode) {
+        return execute(tsCode, null);
+    }
 
-            return result;
+    /**
+     * Execute TypeScript code followed by a test harness. Code and harness are
+     * transpiled separately, so every test case of a submission reuses the
+     * cached JavaScript of the shared code and only its own input is new.
+     */
+    public CodeExecutor.ExecutionResult execute(String tsCode, String harness) {
+        TypeStripper.Result[] js;
+        try {
+            js = transpileParts(tsCode, harness);
+        } catch (RuntimeException e) {
+            return transpileError(e);
         }
-    """;
-
-    private final CodeExecutor jsExecutor;
-    private final Context transpilerContext;
-
-    public TypeScriptExecutor() {
-        this.jsExecutor = new CodeExecutor();
+        return toSourcePositions(tsCode, harness, js).apply(jsExecutor.execute(js[0].getCode(), code(js[1])));
+    }
 
-        // Initialize TypeScript transpiler context
-        this.transpilerContext = Context.newBuilder("js")
-                .allowAllAccess(false)
-                .build();
+    /**
+     * Run TypeScript code on a runner thread, streaming its output
+     */
+    public CodeExecutor.AsyncExecution executeAsync(String tsCode) {
+        return executeAsync(tsCode, null);
+    }
 
+    /**
+     * Run TypeScript code followed by a test harness on a runner thread.
+     * Code that fails to transpile yields an already completed execution
+     * carrying the error, just as execute() returns it.
+     */
+    public CodeExecutor.AsyncExecution executeAsync(String tsCode, String harness) {
+        TypeStripper.Result[] js;
         try {
-            transpilerContext.eval("js", TS_TRANSPILER);
-        } catch (Exception e) {
-            System.err.println("Failed to initialize TypeScript transpiler: " + e.getMessage());
+            js = transpileParts(tsCode, harness);
+        } catch (RuntimeException e) {
+            return CodeExecutor.AsyncExecution.completed(transpileError(e));
         }
+        return jsExecutor.executeAsync(js[0].getCode(), code(js[1]), toSourcePositions(tsCode, harness, js));
     }
 
     /**
-     * Execute TypeScript code
+     * Transpile cache, for size and hit-rate metrics
      */
-    public CodeExecutor.ExecutionResult execute(String tsCode) {
-        try {
-            // Transpile TypeScript to JavaScript
-            Value transpilerFunc = transpilerContext.getBindings("js").getMember("transpileTypeScript");
-            String jsCode = transpilerFunc.execute(tsCode).asString();
-
-            // Execute the transpiled JavaScript
-            return jsExecutor.execute(jsCode);
-
-        } catch (PolyglotException e) {
-            return new CodeExecutor.ExecutionResult(false, "",
-                "TypeScript error: " + e.getMessage(), null);
-        } catch (Exception e) {
-            return new CodeExecutor.ExecutionResult(false, "",
-                "Transpilation error: " + e.getMessage(), null);
-        }
+    public TranspileCache getCache() {
+        return cache;
+    }
+
+    private static CodeExecutor.ExecutionResult transpileError(RuntimeException e) {
+        return new CodeExecutor.ExecutionResult(false, "", "Transpilation error: " + e.getMessage(), null);
     }
 
     /**
-     * Detect if code is TypeScript (contains type annotations)
+     * Stripped code and harness; the harness entry is null when there is none
      */
-    public static boolean isTypeScript(String code) {
-        // Simple heuristics to detect TypeScript
-        return code.contains(": string") ||
-               code.contains(": number") ||
-               code.contains(": boolean") ||
-               code.contains("interface ") ||
-               code.contains("type ") ||
-               code.contains("enum ") ||
-               code.contains("<") && code.contains(">") || // Generics
-               code.contains(" as "); // Type assertions
+    private TypeStripper.Result[] transpileParts(String tsCode, String harness) {
+        TypeStripper.Result input = harness == null || harness.isBlank() ? null : transpile(harness);
+        return new TypeStripper.Result[]{transpile(tsCode), input};
+    }
+
+    private static String code(TypeStripper.Result stripped) {
+        return stripped != null ? stripped.getCode() : null;
     }
 
     /**
-     * Close the transpiler context
+     * Rewrites a result's error location, and the line:column in a syntax error
+     * message, from the emitted JavaScript to the TypeScript source
      */
-    public void close() {
-        if (transpilerContext != null) {
-            transpilerContext.close();
-        }
+    private static UnaryOperator<CodeExecutor.ExecutionResult> toSourcePositions(
+            String tsCode, String harness, TypeStripper.Result[] js) {
+        return result -> {
+            CodeExecutor.ExecutionResult.ErrorLocation at = result.getErrorLocation();
+            if (at == null || at.getPart() >= js.length || js[at.getPart()] == null) {
+                return result;
+            }
+            String source = at.getPart() == 0 ? tsCode : harness;
+            int offset = Math.min(js[at.getPart()].toSourceOffset(at.getCharIndex()), source.length());
+            int line = 1;
+            int lineStart = 0;
+            for (int i = 0; i < offset; i++) {
+                if (source.charAt(i) == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            int column = offset - lineStart + 1;
+            if (line == at.getLine() && column == at.getColumn()) {
+                return result;
+            }
+            // GraalVM prints syntax error positions as name:line:column with a 0-based column
+            String error = result.getError();
+            if (error != null) {
+                error = error.replaceFirst(":" + at.getLine() + ":" + (at.getColumn() - 1) + " ",
+                        ":" + line + ":" + (column - 1) + " ");
+            }
+            return new CodeExecutor.ExecutionResult(result.isSuccess(), result.getOutput(), error,
+                    result.getReturnValue(), result.getLimitExceeded(),
+                    new CodeExecutor.ExecutionResult.ErrorLocation(at.getPart(), offset, line, column));
+        };
     }
 }
@@ -0,0 +1,1433 @@
+package com.jstslearning.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single-pass, tokenizer-based TypeScript type stripper.
+ *
+ * The source is tokenized once (with a bracket match table), then walked once
+ * while type-only syntax is overwritten with spaces. Line breaks are kept, so
+ * the emitted JavaScript has every character at its original offset and error
+ * positions map straight back to the TypeScript source. Only enums and
+ * constructor parameter properties need generated code; those insertions are
+ * recorded in the {@link Result} so offsets can still be translated.
+ *
+ * Handles annotations, generics, interfaces and type aliases (with nested
+ * braces), as/satisfies assertions, non-null (!) and optional (?) markers,
+ * access modifiers, overload signatures, declare statements and enums.
+ * Non-declare namespaces and decorators are left untouched.
+ */
+public final class TypeStripper {
+
+    /**
+     * Stripped JavaScript plus the insertions needed to map offsets back to the TypeScript source
+     */
+    public static final class Result {
+        private final String code;
+        private final int[] insertOffsets; // Source offsets where generated code was inserted, ascending
+        private final int[] insertLengths;
+
+        private Result(String code, int[] insertOffsets, int[] insertLengths) {
+            this.code = code;
+            this.insertOffsets = insertOffsets;
+            this.insertLengths = insertLengths;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * Map an offset in the emitted JavaScript to the matching TypeScript offset.
+         * Offsets inside generated code map to the start of the construct that produced it.
+         */
+        public int toSourceOffset(int jsOffset) {
+            int shift = 0;
+            for (int k = 0; k < insertOffsets.length; k++) {
+                int insertedAt = insertOffsets[k] + shift;
+                if (jsOffset < insertedAt) {
+                    break;
+                }
+                if (jsOffset < insertedAt + insertLengths[k]) {
+                    return insertOffsets[k];
+                }
+                shift += insertLengths[k];
+            }
+            return jsOffset - shift;
+        }
+    }
+
+    // Token kinds
+    private static final int IDENT = 0;
+    private static final int NUMBER = 1;
+    private static final int STRING = 2;
+    private static final int TEMPLATE = 3; // Template without substitutions
+    private static final int TEMPLATE_HEAD = 4; // `...${
+    private static final int TEMPLATE_MIDDLE = 5; // }...${
+    private static final int TEMPLATE_TAIL = 6; // }...`
+    private static final int REGEX = 7;
+    private static final int PUNCT = 8;
+
+    // Multi-character punctuators, longest first. '<' and '>' are always single
+    // tokens so nested generics like Map<K, Array<V>> close correctly.
+    private static final String[] PUNCTUATORS = {
+        "...", "===", "!==", "**=", "&&=", "||=", "??=",
+        "=>", "==", "!=", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=",
+        "&&", "||", "??", "?.", "++", "--", "**"
+    };
+
+    // Keywords after which an expression has not ended (so '/' starts a regex, '!' is prefix, ...)
+    private static final Set<String> OPERATOR_KEYWORDS = Set.of(
+        "return", "typeof", "instanceof", "in", "of", "new", "delete", "void", "throw",
+        "case", "do", "else", "yield", "await", "extends", "as", "satisfies", "export",
+        "import", "default", "if", "while", "for", "switch", "with", "let", "const", "var");
+
+    // Keywords that can never start a type
+    private static final Set<String> NON_TYPE_KEYWORDS = Set.of(
+        "break", "case", "catch", "class", "continue", "debugger", "default", "delete", "do",
+        "else", "export", "extends", "finally", "for", "function", "if", "import", "in",
+        "instanceof", "let", "return", "super", "switch", "throw", "try", "var", "while",
+        "with", "yield", "await", "implements", "satisfies", "as");
+
+    // Keywords whose parenthesized part is not a parameter list
+    private static final Set<String> CONTROL_KEYWORDS = Set.of(
+        "if", "while", "for", "switch", "with", "return", "typeof", "void", "delete",
+        "await", "yield", "throw", "case", "in", "of", "new", "instanceof", "super", "function");
+
+    // TypeScript-only modifiers that are dropped from class members and parameters
+    private static final Set<String> TS_MODIFIERS = Set.of(
+        "public", "private", "protected", "readonly", "override", "abstract", "declare");
+
+    // Modifiers that are valid JavaScript and kept
+    private static final Set<String> JS_MODIFIERS = Set.of("static", "async", "get", "set", "accessor");
+
+    private final String src;
+    private final char[] out;
+    private final List<int[]> insertions = new ArrayList<>(); // {sourceOffset, order}
+    private final List<String> insertedCode = new ArrayList<>();
+
+    private int count;
+    private int[] kind = new int[64];
+    private int[] start = new int[64];
+    private int[] end = new int[64];
+    private int[] match = new int[64];
+    private boolean[] newlineBefore = new boolean[64];
+
+    private TypeStripper(String src) {
+        this.src = src;
+        this.out = src.toCharArray();
+    }
+
+    /**
+     * Strip TypeScript-only syntax, returning runnable JavaScript.
+     * The walk recurses once per nesting level, so pathologically deep input
+     * is rejected with an IllegalArgumentException rather than a StackOverflowError.
+     */
+    public static Result strip(String tsCode) {
+        TypeStripper stripper = new TypeStripper(tsCode);
+        try {
+            stripper.tokenize();
+            stripper.walk(0, stripper.count);
+        } catch (StackOverflowError e) {
+            throw new IllegalArgumentException("Code is nested too deeply to transpile");
+        }
+        return stripper.result();
+    }
+
+    // ------------------------------------------------------------------
+    // Tokenizer
+    // ------------------------------------------------------------------
+
+    private void tokenize() {
+        int n = src.length();
+        int pos = 0;
+        boolean newline = false;
+        // Open brackets (token index) and template substitutions (encoded as -(head + 2))
+        int[] stack = new int[16];
+        int depth = 0;
+
+        while (pos < n) {
+            char c = src.charAt(pos);
+
+            if (c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029') {
+                newline = true;
+                pos++;
+                continue;
+            }
+            if (Character.isWhitespace(c) || c == '\u00A0' || c == '\uFEFF') {
+                pos++;
+                continue;
+            }
+            if (c == '/' && pos + 1 < n && src.charAt(pos + 1) == '/') {
+                while (pos < n && src.charAt(pos) != '\n' && src.charAt(pos) != '\r') {
+                    pos++;
+                }
+                continue;
+            }
+            if (c == '/' && pos + 1 < n && src.charAt(pos + 1) == '*') {
+                int close = src.indexOf("*/", pos + 2);
+                int stop = close < 0 ? n : close + 2;
+                for (int k = pos; k < stop; k++) {
+                    if (src.charAt(k) == '\n') {
+                        newline = true;
+                    }
+                }
+                pos = stop;
+                continue;
+            }
+
+            int tokenStart = pos;
+            int tokenKind;
+            if (Character.isJavaIdentifierStart(c) || c == '#') {
+                pos++;
+                while (pos < n && Character.isJavaIdentifierPart(src.charAt(pos))) {
+                    pos++;
+                }
+                tokenKind = IDENT;
+            } else if (Character.isDigit(c) || (c == '.' && pos + 1 < n && Character.isDigit(src.charAt(pos + 1)))) {
+                pos = scanNumber(pos);
+                tokenKind = NUMBER;
+            } else if (c == '"' || c == '\'') {
+                pos = scanString(pos, c);
+                tokenKind = STRING;
+            } else if (c == '`') {
+                pos = scanTemplate(pos + 1);
+                tokenKind = src.charAt(pos - 1) == '`' && pos - 1 > tokenStart ? TEMPLATE : TEMPLATE_HEAD;
+                if (pos >= n && src.charAt(pos - 1) != '`') {
+                    tokenKind = TEMPLATE; // Unterminated
+                }
+            } else if (c == '}' && depth > 0 && stack[depth - 1] < -1) {
+                // Closing a template substitution: continue the template
+                int head = -stack[--depth] - 2;
+                pos = scanTemplate(pos + 1);
+                if (src.charAt(pos - 1) == '`') {
+                    tokenKind = TEMPLATE_TAIL;
+                    match[head] = count;
+                    addToken(tokenKind, tokenStart, pos, newline);
+                    match[count - 1] = head;
+                    newline = false;
+                    continue;
+                }
+                tokenKind = TEMPLATE_MIDDLE;
+                addToken(tokenKind, tokenStart, pos, newline);
+                newline = false;
+                stack = push(stack, depth++, -(head + 2));
+                continue;
+            } else if (c == '/' && regexAllowed()) {
+                int stop = scanRegex(pos);
+                if (stop > 0) {
+                    pos = stop;
+                    tokenKind = REGEX;
+                } else {
+                    pos++;
+                    tokenKind = PUNCT;
+                }
+            } else {
+                pos = scanPunctuator(pos);
+                tokenKind = PUNCT;
+            }
+
+            addToken(tokenKind, tokenStart, pos, newline);
+            newline = false;
+            int index = count - 1;
+
+            if (tokenKind == TEMPLATE_HEAD) {
+                stack = push(stack, depth++, -(index + 2));
+            } else if (tokenKind == PUNCT && pos - tokenStart == 1) {
+                if (c == '(' || c == '[' || c == '{') {
+                    stack = push(stack, depth++, index);
+                } else if ((c == ')' || c == ']' || c == '}') && depth > 0 && stack[depth - 1] >= 0) {
+                    int open = stack[--depth];
+                    match[open] = index;
+                    match[index] = open;
+                }
+            }
+        }
+    }
+
+    private static int[] push(int[] stack, int depth, int value) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth] = value;
+        return stack;
+    }
+
+    private void addToken(int tokenKind, int tokenStart, int tokenEnd, boolean newline) {
+        if (count == kind.length) {
+            int size = count * 2;
+            kind = Arrays.copyOf(kind, size);
+            start = Arrays.copyOf(start, size);
+            end = Arrays.copyOf(end, size);
+            match = Arrays.copyOf(match, size);
+            newlineBefore = Arrays.copyOf(newlineBefore, size);
+        }
+        kind[count] = tokenKind;
+        start[count] = tokenStart;
+        end[count] = tokenEnd;
+        match[count] = -1;
+        newlineBefore[count] = newline;
+        count++;
+    }
+
+    private int scanNumber(int pos) {
+        int n = src.length();
+        boolean hex = src.startsWith("0x", pos) || src.startsWith("0X", pos);
+        boolean dot = false;
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (Character.isLetterOrDigit(c) || c == '_') {
+                pos++;
+            } else if (c == '.' && !dot && !hex) {
+                dot = true;
+                pos++;
+            } else if ((c == '+' || c == '-') && !hex && (src.charAt(pos - 1) == 'e' || src.charAt(pos - 1) == 'E')) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    private int scanString(int pos, char quote) {
+        int n = src.length();
+        pos++;
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote) {
+                return pos + 1;
+            } else if (c == '\n') {
+                return pos; // Unterminated: stop at the line end
+            } else {
+                pos++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Scan template characters up to and including the closing backtick or the next "${"
+     */
+    private int scanTemplate(int pos) {
+        int n = src.length();
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == '`') {
+                return pos + 1;
+            } else if (c == '$' && pos + 1 < n && src.charAt(pos + 1) == '{') {
+                return pos + 2;
+            } else {
+                pos++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Scan a regex literal, or return -1 when it is not one (e.g. runs into a line end)
+     */
+    private int scanRegex(int pos) {
+        int n = src.length();
+        boolean inClass = false;
+        pos++;
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (c == '\n' || c == '\r') {
+                return -1;
+            }
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                pos++;
+                while (pos < n && Character.isJavaIdentifierPart(src.charAt(pos))) {
+                    pos++;
+                }
+                return pos;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private int scanPunctuator(int pos) {
+        char c = src.charAt(pos);
+        if (c != '<' && c != '>') {
+            for (String p : PUNCTUATORS) {
+                if (src.startsWith(p, pos)) {
+                    // "?." followed by a digit is a conditional and a number (a?.5:1)
+                    if (p.equals("?.") && pos + 2 < src.length() && Character.isDigit(src.charAt(pos + 2))) {
+                        break;
+                    }
+                    return pos + p.length();
+                }
+            }
+        }
+        return pos + 1;
+    }
+
+    /**
+     * A '/' starts a regex unless the previous token ended an expression
+     */
+    private boolean regexAllowed() {
+        if (count == 0) {
+            return true;
+        }
+        int prev = count - 1;
+        if (isPunct(prev, '}')) {
+            return true; // Block end is far more common than dividing an object literal
+        }
+        return !endsExpression(prev);
+    }
+
+    // ------------------------------------------------------------------
+    // Token helpers
+    // ------------------------------------------------------------------
+
+    private boolean isPunct(int i, char c) {
+        return i >= 0 && i < count && kind[i] == PUNCT && end[i] - start[i] == 1 && src.charAt(start[i]) == c;
+    }
+
+    private boolean is(int i, String text) {
+        return i >= 0 && i < count && end[i] - start[i] == text.length()
+                && src.regionMatches(start[i], text, 0, text.length());
+    }
+
+    private boolean isIdent(int i) {
+        return i >= 0 && i < count && kind[i] == IDENT;
+    }
+
+    private String text(int i) {
+        return src.substring(start[i], end[i]);
+    }
+
+    private int matchOf(int i) {
+        return match[i] >= 0 ? match[i] : count;
+    }
+
+    /**
+     * Whether token i can be the last token of an expression
+     */
+    private boolean endsExpression(int i) {
+        if (i < 0 || i >= count) {
+            return false;
+        }
+        switch (kind[i]) {
+            case IDENT:
+                return !OPERATOR_KEYWORDS.contains(text(i));
+            case NUMBER:
+            case STRING:
+            case TEMPLATE:
+            case TEMPLATE_TAIL:
+            case REGEX:
+                return true;
+            default:
+                return isPunct(i, ')') || isPunct(i, ']') || isPunct(i, '}');
+        }
+    }
+
+    /**
+     * Whether token i, after a line break, starts a new statement rather than continuing an expression
+     */
+    private boolean startsStatement(int i) {
+        if (kind[i] == IDENT) {
+            String word = text(i);
+            return !word.equals("in") && !word.equals("instanceof") && !word.equals("as") && !word.equals("satisfies");
+        }
+        return kind[i] == NUMBER || kind[i] == STRING || kind[i] == TEMPLATE
+                || kind[i] == TEMPLATE_HEAD || is(i, "++") || is(i, "--");
+    }
+
+    /**
+     * Whether a contextual keyword at i (interface, type, declare) can start a declaration here
+     */
+    private boolean declarationAllowed(int i) {
+        return !endsExpression(i - 1) || isPunct(i - 1, '}') || newlineBefore[i];
+    }
+
+    /**
+     * First token of a declaration, including a leading export
+     */
+    private int declarationStart(int i) {
+        return is(i - 1, "export") ? i - 1 : i;
+    }
+
+    // ------------------------------------------------------------------
+    // Output
+    // ------------------------------------------------------------------
+
+    /**
+     * Overwrite tokens [from, to) and anything between them with spaces, keeping line breaks
+     */
+    private void blank(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        for (int k = start[from]; k < end[to - 1]; k++) {
+            if (out[k] != '\n' && out[k] != '\r') {
+                out[k] = ' ';
+            }
+        }
+    }
+
+    private void insert(int sourceOffset, String code) {
+        insertions.add(new int[]{sourceOffset, insertions.size()});
+        insertedCode.add(code);
+    }
+
+    private Result result() {
+        insertions.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+        StringBuilder js = new StringBuilder(out.length + 64);
+        int[] offsets = new int[insertions.size()];
+        int[] lengths = new int[insertions.size()];
+        int copied = 0;
+        for (int k = 0; k < insertions.size(); k++) {
+            int at = insertions.get(k)[0];
+            String code = insertedCode.get(insertions.get(k)[1]);
+            js.append(out, copied, at - copied).append(code);
+            copied = at;
+            offsets[k] = at;
+            lengths[k] = code.length();
+        }
+        js.append(out, copied, out.length - copied);
+        return new Result(js.toString(), offsets, lengths);
+    }
+
+    // ------------------------------------------------------------------
+    // Types: each parser returns the index after the type, or -1 if tokens at i are not a type
+    // ------------------------------------------------------------------
+
+    private int parseType(int i) {
+        int j = parseUnion(i);
+        if (j >= 0 && is(j, "extends") && !newlineBefore[j]) {
+            // Conditional type: A extends B ? C : D
+            int check = parseUnion(j + 1);
+            if (check >= 0 && isPunct(check, '?')) {
+                int whenTrue = parseType(check + 1);
+                if (whenTrue >= 0 && isPunct(whenTrue, ':')) {
+                    int whenFalse = parseType(whenTrue + 1);
+                    if (whenFalse >= 0) {
+                        return whenFalse;
+                    }
+                }
+            }
+        }
+        return j;
+    }
+
+    private int parseUnion(int i) {
+        if (isPunct(i, '|') || isPunct(i, '&')) {
+            i++;
+        }
+        int j = parseOperand(i);
+        while (j >= 0 && (isPunct(j, '|') || isPunct(j, '&'))) {
+            j = parseOperand(j + 1);
+        }
+        return j;
+    }
+
+    private int parseOperand(int i) {
+        while ((is(i, "keyof") || is(i, "readonly") || is(i, "unique")) && i + 1 < count && !isPunct(i + 1, ')')) {
+            i++;
+        }
+        if (is(i, "infer") && isIdent(i + 1)) {
+            return parsePostfix(i + 2);
+        }
+        int j = parsePrimary(i);
+        return j < 0 ? j : parsePostfix(j);
+    }
+
+    /**
+     * Array and indexed access types: T[], T["key"] (not across a line break, which would be ASI)
+     */
+    private int parsePostfix(int j) {
+        while (isPunct(j, '[') && !newlineBefore[j]) {
+            int close = matchOf(j);
+            if (close == j + 1) {
+                j = close + 1;
+                continue;
+            }
+            int index = parseType(j + 1);
+            if (index != close) {
+                break;
+            }
+            j = close + 1;
+        }
+        return j;
+    }
+
+    private int parsePrimary(int i) {
+        if (i >= count) {
+            return -1;
+        }
+        switch (kind[i]) {
+            case STRING:
+            case NUMBER:
+            case TEMPLATE:
+                return i + 1;
+            case TEMPLATE_HEAD:
+                return matchOf(i) + 1;
+            case IDENT:
+                return parseNamedType(i);
+            case PUNCT:
+                break;
+            default:
+                return -1;
+        }
+        if (isPunct(i, '-') && i + 1 < count && kind[i + 1] == NUMBER) {
+            return i + 2;
+        }
+        if (isPunct(i, '(')) {
+            // Function type (a: T) => R, or a parenthesized type
+            int close = matchOf(i);
+            return is(close + 1, "=>") ? parseType(close + 2) : close + 1;
+        }
+        if (isPunct(i, '<')) {
+            // Generic function type <T>(a: T) => R
+            int params = parseTypeArgs(i);
+            if (params >= 0 && isPunct(params, '(')) {
+                int close = matchOf(params);
+                if (is(close + 1, "=>")) {
+                    return parseType(close + 2);
+                }
+            }
+            return -1;
+        }
+        if (isPunct(i, '{') || isPunct(i, '[')) {
+            // Object, mapped and tuple types: braces may nest arbitrarily
+            return matchOf(i) + 1;
+        }
+        return -1;
+    }
+
+    private int parseNamedType(int i) {
+        String word = text(i);
+        if (NON_TYPE_KEYWORDS.contains(word)) {
+            return -1;
+        }
+        if (word.equals("new") || (word.equals("abstract") && is(i + 1, "new"))) {
+            // Constructor type: new (...) => T
+            int paren = word.equals("new") ? i + 1 : i + 2;
+            if (isPunct(paren, '<')) {
+                paren = parseTypeArgs(paren);
+            }
+            if (paren >= 0 && isPunct(paren, '(')) {
+                int close = matchOf(paren);
+                if (is(close + 1, "=>")) {
+                    return parseType(close + 2);
+                }
+            }
+            return -1;
+        }
+        if (word.equals("typeof") && isIdent(i + 1)) {
+            i++;
+        }
+        if (word.equals("asserts") && isIdent(i + 1)) {
+            // Assertion signature: asserts x, asserts x is T
+            int j = i + 2;
+            return is(j, "is") ? parseType(j + 1) : j;
+        }
+        int j = i + 1;
+        while (isPunct(j, '.') && isIdent(j + 1)) {
+            j += 2;
+        }
+        if (isPunct(j, '<') && !newlineBefore[j]) {
+            int args = parseTypeArgs(j);
+            if (args >= 0) {
+                j = args;
+            }
+        }
+        if (is(j, "is") && !newlineBefore[j]) {
+            // Type predicate: x is T
+            int predicate = parseType(j + 1);
+            if (predicate >= 0) {
+                return predicate;
+            }
+        }
+        return j;
+    }
+
+    /**
+     * Type arguments or type parameters starting at '<': <T>, <K, V>, <T extends X = Y>
+     */
+    private int parseTypeArgs(int i) {
+        int j = i + 1;
+        while (true) {
+            while ((is(j, "const") || is(j, "in") || is(j, "out")) && isIdent(j + 1)) {
+                j++;
+            }
+            int t = parseType(j);
+            if (t < 0) {
+                return -1;
+            }
+            if (is(t, "extends")) {
+                t = parseType(t + 1);
+                if (t < 0) {
+                    return -1;
+                }
+            }
+            if (isPunct(t, '=')) {
+                t = parseType(t + 1);
+                if (t < 0) {
+                    return -1;
+                }
+            }
+            if (isPunct(t, '>')) {
+                return t + 1;
+            }
+            if (!isPunct(t, ',')) {
+                return -1;
+            }
+            j = t + 1;
+            if (isPunct(j, '>')) {
+                return j + 1; // Trailing comma: <T,>
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Statements and expressions
+    // ------------------------------------------------------------------
+
+    /**
+     * Walk tokens [from, to), stripping types; bracketed parts are walked recursively
+     */
+    private void walk(int from, int to) {
+        int i = from;
+        while (i < to) {
+            i = step(i, to);
+        }
+    }
+
+    private int step(int i, int to) {
+        if (kind[i] == IDENT) {
+            return identifier(i, to);
+        }
+        if (kind[i] != PUNCT || end[i] - start[i] != 1) {
+            return i + 1;
+        }
+        switch (src.charAt(start[i])) {
+            case '(':
+                return paren(i, i - 1);
+            case '[':
+            case '{': {
+                int close = Math.min(matchOf(i), to);
+                walk(i + 1, close);
+                return close + 1;
+            }
+            case '<':
+                return angle(i);
+            case '!':
+                // Non-null assertion: '!' directly after an expression
+                if (endsExpression(i - 1) && !isPunct(i - 1, '}') && !newlineBefore[i]) {
+                    blank(i, i + 1);
+                }
+                return i + 1;
+            default:
+                return i + 1;
+        }
+    }
+
+    private int identifier(int i, int to) {
+        if (isPunct(i - 1, '.') || is(i - 1, "?.")) {
+            return genericCall(i, to); // Property name
+        }
+        switch (text(i)) {
+            case "interface":
+                if (isIdent(i + 1) && declarationAllowed(i)) {
+                    return interfaceDeclaration(i);
+                }
+                break;
+            case "type":
+                if (isIdent(i + 1) && (isPunct(i + 2, '=') || isPunct(i + 2, '<')) && declarationAllowed(i)) {
+                    return typeAlias(i);
+                }
+                break;
+            case "enum":
+                if (isIdent(i + 1) && isPunct(i + 2, '{')) {
+                    return enumDeclaration(i, declarationStart(i));
+                }
+                break;
+            case "const":
+                if (is(i + 1, "enum")) {
+                    return enumDeclaration(i + 1, declarationStart(i));
+                }
+                return declaration(i, to);
+            case "let":
+            case "var":
+                if (isIdent(i + 1) || isPunct(i + 1, '{') || isPunct(i + 1, '[')) {
+                    return declaration(i, to);
+                }
+                break;
+            case "declare":
+                if (isIdent(i + 1) && declarationAllowed(i)) {
+                    return declareStatement(i);
+                }
+                break;
+            case "abstract":
+                if (is(i + 1, "class")) {
+                    blank(i, i + 1);
+                    return i + 1;
+                }
+                break;
+            case "class":
+                return classDeclaration(i, to);
+            case "function":
+                return functionDeclaration(i);
+            case "as":
+            case "satisfies":
+                if (endsExpression(i - 1) && !newlineBefore[i]) {
+                    int type = parseType(i + 1);
+                    if (type >= 0) {
+                        blank(i, type);
+                        return type;
+                    }
+                }
+                break;
+            case "import":
+                if (is(i + 1, "type") && (isIdent(i + 2) || isPunct(i + 2, '{') || isPunct(i + 2, '*'))) {
+                    return blankStatement(i, to);
+                }
+                break;
+            case "export":
+                if (is(i + 1, "type") && isPunct(i + 2, '{')) {
+                    return blankStatement(i, to);
+                }
+                break;
+            default:
+                break;
+        }
+        return genericCall(i, to);
+    }
+
+    /**
+     * Explicit type arguments on a call or new: foo<T>(x), new Map<K, V>()
+     */
+    private int genericCall(int i, int to) {
+        if (isPunct(i + 1, '<') && !newlineBefore[i + 1]) {
+            int args = parseTypeArgs(i + 1);
+            if (args >= 0 && isPunct(args, '(')) {
+                blank(i + 1, args);
+                return paren(args, i);
+            }
+        }
+        return i + 1;
+    }
+
+    /**
+     * Parenthesized tokens: arrow/method parameter lists get their types stripped
+     */
+    private int paren(int i, int owner) {
+        int close = matchOf(i);
+        if (is(close + 1, "=>")) {
+            walkParams(i + 1, close, null);
+            return close + 1;
+        }
+        boolean methodLike = owner >= 0
+                && (isIdent(owner) && !CONTROL_KEYWORDS.contains(text(owner))
+                    || kind[owner] == STRING || isPunct(owner, ']'));
+        if (isPunct(close + 1, ':')) {
+            // Return type of an arrow function or a method shorthand
+            int type = parseType(close + 2);
+            // In c ? (x) : y => y * 2 the ':' belongs to the conditional; like tsc, only read an
+            // arrow with a return type there when the conditional's own ':' still follows it
+            boolean arrow = is(type, "=>") && (!isPunct(i - 1, '?') || conditionalColonAfter(type + 1));
+            if (type >= 0 && (arrow || (methodLike && isPunct(type, '{')))) {
+                walkParams(i + 1, close, null);
+                blank(close + 1, type);
+                return type;
+            }
+        }
+        if (methodLike && isPunct(close + 1, '{') && !newlineBefore[close + 1]) {
+            walkParams(i + 1, close, null); // Method shorthand or catch clause
+            return close + 1;
+        }
+        walk(i + 1, close);
+        return close + 1;
+    }
+
+    /**
+     * Whether the expression starting at from is followed by the ':' of an enclosing
+     * conditional, skipping brackets and any nested conditionals
+     */
+    private boolean conditionalColonAfter(int from) {
+        int nested = 0;
+        int k = from;
+        while (k < count) {
+            if (k > from && newlineBefore[k] && endsExpression(k - 1) && startsStatement(k)) {
+                return false;
+            }
+            if (kind[k] == TEMPLATE_HEAD) {
+                k = matchOf(k) + 1;
+                continue;
+            }
+            if (kind[k] == PUNCT && end[k] - start[k] == 1) {
+                switch (src.charAt(start[k])) {
+                    case '(':
+                    case '[':
+                    case '{':
+                        k = matchOf(k) + 1;
+                        continue;
+                    case ')':
+                    case ']':
+                    case '}':
+                    case ';':
+                    case ',':
+                        return false;
+                    case '?':
+                        nested++;
+                        break;
+                    case ':':
+                        if (nested == 0) {
+                            return true;
+                        }
+                        nested--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            k++;
+        }
+        return false;
+    }
+
+    /**
+     * A '<' where no expression precedes it cannot be a comparison: it opens a
+     * generic arrow <T>(x: T) => x or an angle-bracket assertion <T>value
+     */
+    private int angle(int i) {
+        if (!endsExpression(i - 1)) {
+            int params = parseTypeArgs(i);
+            if (params >= 0) {
+                blank(i, params);
+                return params;
+            }
+        }
+        return i + 1;
+    }
+
+    /**
+     * Parameters in [from, to): modifiers, optional markers, annotations and this-parameters.
+     * Names of parameter properties (private x: T) are added to properties when given.
+     */
+    private void walkParams(int from, int to, List<String> properties) {
+        int j = from;
+        while (j < to) {
+            int paramStart = j;
+            boolean property = false;
+            while (isIdent(j) && TS_MODIFIERS.contains(text(j))
+                    && (isIdent(j + 1) || isPunct(j + 1, '{') || isPunct(j + 1, '['))) {
+                blank(j, j + 1);
+                property = true;
+                j++;
+            }
+            if (is(j, "this") && isPunct(j + 1, ':')) {
+                // this-parameter exists only for the type checker
+                int type = parseType(j + 2);
+                int stop = type < 0 ? scanExpressionEnd(j, to, true) : type;
+                if (isPunct(stop, ',')) {
+                    stop++;
+                }
+                blank(paramStart, stop);
+                j = stop;
+                continue;
+            }
+            if (is(j, "...")) {
+                j++;
+            }
+            int name = j;
+            if (isPunct(j, '{') || isPunct(j, '[')) {
+                int close = Math.min(matchOf(j), to);
+                walk(j + 1, close);
+                j = close + 1;
+            } else if (j < to) {
+                j++;
+            }
+            if (property && properties != null && isIdent(name)) {
+                properties.add(text(name));
+            }
+            if (isPunct(j, '?') && j < to) {
+                blank(j, j + 1);
+                j++;
+            }
+            if (isPunct(j, ':') && j < to) {
+                int type = parseType(j + 1);
+                if (type >= 0 && type <= to) {
+                    blank(j, type);
+                    j = type;
+                }
+            }
+            if (j < to && !isPunct(j, ',')) {
+                // Default value (or anything unexpected): walk it as an expression
+                int stop = scanExpressionEnd(j, to, true);
+                walk(j, stop);
+                j = stop;
+            }
+            if (isPunct(j, ',')) {
+                j++;
+            }
+        }
+    }
+
+    /**
+     * End of the expression starting at from: a ';', a ',' (optionally), the range end,
+     * or a line break where automatic semicolon insertion ends the statement
+     */
+    private int scanExpressionEnd(int from, int to, boolean stopAtComma) {
+        int k = from;
+        while (k < to) {
+            if (k > from && newlineBefore[k] && endsExpression(k - 1) && startsStatement(k)) {
+                return k;
+            }
+            if (kind[k] == TEMPLATE_HEAD) {
+                k = matchOf(k) + 1;
+                continue;
+            }
+            if (kind[k] == PUNCT && end[k] - start[k] == 1) {
+                char c = src.charAt(start[k]);
+                if (c == '(' || c == '[' || c == '{') {
+                    k = matchOf(k) + 1;
+                    continue;
+                }
+                if (c == ';' || (c == ',' && stopAtComma)) {
+                    return k;
+                }
+            }
+            k++;
+        }
+        return Math.min(k, to);
+    }
+
+    /**
+     * let/const/var declarations: definite assignment markers and annotations on each binding
+     */
+    private int declaration(int i, int to) {
+        int j = i + 1;
+        while (j < to) {
+            if (isPunct(j, '{') || isPunct(j, '[')) {
+                int close = Math.min(matchOf(j), to);
+                walk(j + 1, close);
+                j = close + 1;
+            } else if (isIdent(j)) {
+                j++;
+            } else {
+                return j;
+            }
+            if (isPunct(j, '!')) {
+                blank(j, j + 1);
+                j++;
+            }
+            if (isPunct(j, ':')) {
+                int type = parseType(j + 1);
+                if (type >= 0) {
+                    blank(j, type);
+                    j = type;
+                }
+            }
+            if (!isPunct(j, '=')) {
+                if (!isPunct(j, ',')) {
+                    return j; // e.g. for (const x of xs)
+                }
+                j++;
+                continue;
+            }
+            int stop = scanExpressionEnd(j + 1, to, true);
+            walk(j + 1, stop);
+            j = stop;
+            if (!isPunct(j, ',')) {
+                return j;
+            }
+            j++;
+        }
+        return j;
+    }
+
+    private int interfaceDeclaration(int i) {
+        int j = i + 2;
+        if (isPunct(j, '<')) {
+            j = parseTypeArgs(j);
+        }
+        if (j >= 0 && is(j, "extends")) {
+            do {
+                j = parseType(j + 1);
+            } while (j >= 0 && isPunct(j, ','));
+        }
+        if (j < 0 || !isPunct(j, '{')) {
+            return i + 1;
+        }
+        int stop = matchOf(j) + 1;
+        blank(declarationStart(i), stop);
+        return stop;
+    }
+
+    private int typeAlias(int i) {
+        int j = i + 2;
+        if (isPunct(j, '<')) {
+            j = parseTypeArgs(j);
+        }
+        if (j < 0 || !isPunct(j, '=')) {
+            return i + 1;
+        }
+        int stop = parseType(j + 1);
+        if (stop < 0) {
+            return i + 1;
+        }
+        if (isPunct(stop, ';')) {
+            stop++;
+        }
+        blank(declarationStart(i), stop);
+        return stop;
+    }
+
+    /**
+     * declare const/function/class/namespace/module/global ...: ambient, nothing to run
+     */
+    private int declareStatement(int i) {
+        String next = text(i + 1);
+        int stop;
+        if (next.equals("class") || next.equals("namespace") || next.equals("module")
+                || next.equals("global") || next.equals("enum") || next.equals("interface")) {
+            int j = i + 1;
+            while (j < count && !isPunct(j, '{') && !isPunct(j, ';')) {
+                j++;
+            }
+            stop = isPunct(j, '{') ? matchOf(j) + 1 : j;
+        } else {
+            stop = scanExpressionEnd(i + 1, count, false);
+        }
+        if (isPunct(stop, ';')) {
+            stop++;
+        }
+        blank(declarationStart(i), stop);
+        return stop;
+    }
+
+    /**
+     * Blank a type-only import/export statement
+     */
+    private int blankStatement(int i, int to) {
+        int stop = scanExpressionEnd(i + 1, to, false);
+        if (isPunct(stop, ';')) {
+            stop++;
+        }
+        blank(i, stop);
+        return stop;
+    }
+
+    /**
+     * Replace an enum with the object TypeScript emits for it (numeric members get reverse mappings)
+     */
+    private int enumDeclaration(int enumToken, int declStart) {
+        int nameToken = enumToken + 1;
+        int open = enumToken + 2;
+        int close = matchOf(open);
+        int stop = close + 1;
+        String name = text(nameToken);
+        StringBuilder js = new StringBuilder("var ").append(name).append("; (function (").append(name).append(") {");
+
+        Long nextValue = 0L; // null once an initializer is not a plain integer
+        String previousMember = null;
+        int j = open + 1;
+        while (j < close) {
+            if (isPunct(j, ',')) {
+                j++;
+                continue;
+            }
+            String member = kind[j] == STRING ? text(j) : "\"" + text(j) + "\"";
+            j++;
+            String value;
+            boolean stringValue = false;
+            if (isPunct(j, '=')) {
+                int valueEnd = scanExpressionEnd(j + 1, close, true);
+                value = src.substring(start[j + 1], end[valueEnd - 1]).trim();
+                stringValue = valueEnd == j + 2 && (kind[j + 1] == STRING || kind[j + 1] == TEMPLATE);
+                nextValue = parseInteger(value);
+                if (nextValue != null) {
+                    nextValue++;
+                }
+                j = valueEnd;
+            } else if (nextValue != null) {
+                value = String.valueOf(nextValue++);
+            } else {
+                value = name + "[" + previousMember + "] + 1";
+            }
+            if (stringValue) {
+                js.append(' ').append(name).append('[').append(member).append("] = ").append(value).append(';');
+            } else {
+                js.append(' ').append(name).append('[').append(name).append('[').append(member).append("] = ")
+                  .append(value).append("] = ").append(member).append(';');
+            }
+            previousMember = member;
+        }
+        js.append(" })(").append(name).append(" || (").append(name).append(" = {}));");
+
+        blank(declStart, stop);
+        insert(start[declStart], js.toString());
+        return stop;
+    }
+
+    private static Long parseInteger(String value) {
+        try {
+            return Long.parseLong(value.replace(" ", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private int functionDeclaration(int i) {
+        int j = i + 1;
+        if (isPunct(j, '*')) {
+            j++;
+        }
+        if (isIdent(j)) {
+            j++;
+        }
+        if (isPunct(j, '<')) {
+            int params = parseTypeArgs(j);
+            if (params >= 0) {
+                blank(j, params);
+                j = params;
+            }
+        }
+        if (!isPunct(j, '(')) {
+            return j;
+        }
+        int close = matchOf(j);
+        walkParams(j + 1, close, null);
+        j = close + 1;
+        if (isPunct(j, ':')) {
+            int type = parseType(j + 1);
+            if (type >= 0) {
+                blank(j, type);
+                j = type;
+            }
+        }
+        if (isPunct(j, '{')) {
+            return j; // Body is walked by the caller
+        }
+        // Overload signature: no body, nothing to run
+        int signatureStart = is(i - 1, "async") ? i - 1 : i;
+        signatureStart = declarationStart(signatureStart);
+        if (isPunct(j, ';')) {
+            j++;
+        }
+        blank(signatureStart, j);
+        return j;
+    }
+
+    private int classDeclaration(int i, int to) {
+        int j = i + 1;
+        if (isIdent(j) && !is(j, "extends") && !is(j, "implements")) {
+            j++;
+        }
+        if (isPunct(j, '<')) {
+            int params = parseTypeArgs(j);
+            if (params >= 0) {
+                blank(j, params);
+                j = params;
+            }
+        }
+        if (is(j, "extends")) {
+            j++;
+            while (j < to && !isPunct(j, '{') && !is(j, "implements")) {
+                if (isPunct(j, '<')) {
+                    int args = parseTypeArgs(j);
+                    if (args >= 0) {
+                        blank(j, args);
+                        j = args;
+                        continue;
+                    }
+                }
+                if (isPunct(j, '(') || isPunct(j, '[')) {
+                    int close = matchOf(j);
+                    walk(j + 1, close);
+                    j = close + 1;
+                    continue;
+                }
+                j++;
+            }
+        }
+        if (is(j, "implements")) {
+            int k = j;
+            while (k < to && !isPunct(k, '{')) {
+                k++;
+            }
+            blank(j, k);
+            j = k;
+        }
+        if (!isPunct(j, '{')) {
+            return j;
+        }
+        int close = matchOf(j);
+        classBody(j + 1, close);
+        return close + 1;
+    }
+
+    /**
+     * Class members: modifiers, optional/definite markers, annotations, index
+     * signatures, overloads, abstract/declare members and parameter properties
+     */
+    private void classBody(int from, int to) {
+        int j = from;
+        while (j < to) {
+            if (isPunct(j, ';')) {
+                j++;
+                continue;
+            }
+            int memberStart = j;
+            boolean ambient = false;
+            boolean isStatic = false;
+            // Modifiers are only modifiers when a member name follows them
+            while (isIdent(j) && (TS_MODIFIERS.contains(text(j)) || JS_MODIFIERS.contains(text(j)))
+                    && (isIdent(j + 1) || isPunct(j + 1, '[') || isPunct(j + 1, '*') || isPunct(j + 1, '{')
+                        || kind[j + 1] == STRING || kind[j + 1] == NUMBER)
+                    && !newlineBefore[j + 1]) {
+                String modifier = text(j);
+                if (TS_MODIFIERS.contains(modifier)) {
+                    ambient |= modifier.equals("abstract") || modifier.equals("declare");
+                    blank(j, j + 1);
+                }
+                isStatic |= modifier.equals("static");
+                j++;
+            }
+            if (isStatic && isPunct(j, '{')) {
+                int close = matchOf(j);
+                walk(j + 1, close);
+                j = close + 1;
+                continue;
+            }
+            if (isPunct(j, '*')) {
+                j++;
+            }
+            // Index signature: [key: string]: T
+            if (isPunct(j, '[') && isIdent(j + 1) && isPunct(j + 2, ':')) {
+                int close = matchOf(j);
+                int stop = close + 1;
+                if (isPunct(stop, ':')) {
+                    int type = parseType(stop + 1);
+                    stop = type >= 0 ? type : stop;
+                }
+                if (isPunct(stop, ';')) {
+                    stop++;
+                }
+                blank(memberStart, stop);
+                j = stop;
+                continue;
+            }
+            int name = j;
+            if (isPunct(j, '[')) {
+                int close = matchOf(j);
+                walk(j + 1, close);
+                j = close + 1;
+            } else {
+                j++;
+            }
+            if ((isPunct(j, '?') || isPunct(j, '!')) && !newlineBefore[j]) {
+                blank(j, j + 1);
+                j++;
+            }
+            if (isPunct(j, '<')) {
+                int params = parseTypeArgs(j);
+                if (params >= 0) {
+                    blank(j, params);
+                    j = params;
+                }
+            }
+            if (isPunct(j, '(')) {
+                j = method(memberStart, name, j, ambient);
+                continue;
+            }
+            // Property
+            if (isPunct(j, ':')) {
+                int type = parseType(j + 1);
+                if (type >= 0) {
+                    blank(j, type);
+                    j = type;
+                }
+            }
+            if (isPunct(j, '=')) {
+                int stop = scanExpressionEnd(j + 1, to, false);
+                walk(j + 1, stop);
+                j = stop;
+            }
+            if (isPunct(j, ';')) {
+                j++;
+            }
+            if (ambient) {
+                blank(memberStart, j);
+            }
+            if (j == name) {
+                j++; // Never stall on unexpected tokens
+            }
+        }
+    }
+
+    private int method(int memberStart, int name, int paren, boolean ambient) {
+        List<String> properties = is(name, "constructor") ? new ArrayList<>() : null;
+        int close = matchOf(paren);
+        walkParams(paren + 1, close, properties);
+        int j = close + 1;
+        if (isPunct(j, ':')) {
+            int type = parseType(j + 1);
+            if (type >= 0) {
+                blank(j, type);
+                j = type;
+            }
+        }
+        if (!isPunct(j, '{') || ambient) {
+            // Overload signature or abstract method: no body to run
+            int stop = isPunct(j, '{') ? matchOf(j) + 1 : j;
+            if (isPunct(stop, ';')) {
+                stop++;
+            }
+            blank(memberStart, stop);
+            return stop;
+        }
+        int bodyClose = matchOf(j);
+        if (properties != null && !properties.isEmpty()) {
+            insertParameterProperties(j, bodyClose, properties);
+        }
+        walk(j + 1, bodyClose);
+        return bodyClose + 1;
+    }
+
+    /**
+     * constructor(private x: T) means this.x = x at the top of the body (after super(...) if present)
+     */
+    private void insertParameterProperties(int bodyOpen, int bodyClose, List<String> properties) {
+        int after = bodyOpen + 1;
+        for (int k = bodyOpen + 1; k < bodyClose; ) {
+            if (is(k, "super") && isPunct(k + 1, '(')) {
+                after = matchOf(k + 1) + 1;
+                if (isPunct(after, ';')) {
+                    after++;
+                }
+                break;
+            }
+            k = isPunct(k, '(') || isPunct(k, '[') || isPunct(k, '{') ? matchOf(k) + 1 : k + 1;
+        }
+        int offset = end[after - 1];
+        StringBuilder js = new StringBuilder();
+        if (!isPunct(after - 1, '{') && !isPunct(after - 1, ';')) {
+            js.append(';');
+        }
+        for (String property : properties) {
+            js.append(" this.").append(property).append(" = ").append(property).append(';');
+        }
+        insert(offset, js.toString());
+    }
+}
@@ -0,0 +1,68 @@
+package com.jstslearning.tools;
+
+import com.jstslearning.model.Module;
+import com.jstslearning.service.ContentJsonDecoder;
+import com.jstslearning.service.ContentPack;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Build-time tool: compiles content/module*.json into the binary content pack.
+ * Run by the exec-maven-plugin during process-classes; usage:
+ * ContentPackGenerator &lt;content dir&gt; &lt;output pack file&gt;
+ */
+public class ContentPackGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ContentPackGenerator <content dir> <output pack file>");
+            System.exit(2);
+        }
+        Path contentDir = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+
+        List<Module> modules = new ArrayList<>();
+        List<String> fileNames = new ArrayList<>();
+        ContentJsonDecoder decoder = new ContentJsonDecoder();
+        for (Path file : moduleFiles(contentDir)) {
+            fileNames.add(file.getFileName().toString());
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                modules.add(decoder.readModule(reader, false));
+            }
+        }
+        modules.sort(Comparator.comparingInt(Module::getId));
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        long fingerprint = ContentPack.sourceFingerprint(fileNames,
+                fileName -> Files.newInputStream(contentDir.resolve(fileName)));
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+            ContentPack.write(modules, fingerprint, out);
+        }
+        System.out.println("Wrote " + modules.size() + " modules to " + output
+                + " (" + Files.size(output) + " bytes)");
+    }
+
+    /**
+     * module1.json ... moduleN.json in numeric order
+     */
+    private static List<Path> moduleFiles(Path contentDir) throws IOException {
+        try (Stream<Path> files = Files.list(contentDir)) {
+            return files.filter(p -> p.getFileName().toString().matches("module\\d+\\.json"))
+                    .sorted(Comparator.comparingInt(p ->
+                            Integer.parseInt(p.getFileName().toString().replaceAll("\\D", ""))))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.jstslearning.tools;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.jstslearning.model.Challenge;
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+import com.jstslearning.service.ChallengeGrader;
+import com.jstslearning.service.CodeExecutor;
+import com.jstslearning.service.ContentLoader;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless check that every lesson's solution passes its own challenge tests.
+ * Solutions are graded by the same ChallengeGrader the app uses for Submit,
+ * so a PASS here means a student can pass the lesson in the app. All lessons
+ * share one CodeExecutor, so engines and contexts are reused; lessons and
+ * their test cases run concurrently, with at most the executor's pool size
+ * (-Djstslearning.pool.size) runs at a time. Writes a JSON report (to the
+ * given file, or stdout) and exits with 1 if anything failed.
+ * Usage: ContentVerifier [report.json]
+ */
+public class ContentVerifier {
+
+    /**
+     * Outcome of one lesson, serialized into the report
+     */
+    public static class LessonReport {
+        private String lessonId;
+        private int moduleId;
+        private String title;
+        private String language; // "javascript" or "typescript"
+        private String status; // PASS, FAIL or NO_CHALLENGE
+        private double millis; // Time to run all of the lesson's test cases
+        private List<TestReport> tests = new ArrayList<>();
+    }
+
+    public static class TestReport {
+        private String description;
+        private boolean passed;
+        private String expected;
+        private String actual;
+        private String error;
+    }
+
+    public static class Report {
+        private String generatedAt;
+        private int lessons;
+        private int passed;
+        private int failed;
+        private int withoutChallenge;
+        private double totalMillis;
+        private List<LessonReport> results = new ArrayList<>();
+    }
+
+    public static void main(String[] args) throws Exception {
+        ContentLoader contentLoader = new ContentLoader();
+        contentLoader.loadAllModules();
+
+        CodeExecutor executor = new CodeExecutor();
+        Report report;
+        try {
+            report = verify(contentLoader, executor);
+        } finally {
+            executor.close();
+        }
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        if (args.length > 0) {
+            try (Writer out = Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8)) {
+                gson.toJson(report, out);
+            }
+            System.out.println("Report written to " + args[0]);
+        } else {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            gson.toJson(report, out);
+            out.flush();
+        }
+
+        System.err.printf("Verified %d lessons in %.0f ms: %d passed, %d failed, %d without a challenge%n",
+                report.lessons, report.totalMillis, report.passed, report.failed, report.withoutChallenge);
+        System.exit(report.failed > 0 ? 1 : 0);
+    }
+
+    /**
+     * Run every lesson's solution against its test cases, in course order in the report
+     */
+    public static Report verify(ContentLoader contentLoader, CodeExecutor executor)
+            throws InterruptedException, IOException {
+        ChallengeGrader grader = new ChallengeGrader(executor);
+        // Two levels of parallelism: each worker grades one lesson, and the grader fans that
+        // lesson's test cases out over the executor's runner threads. Workers only submit and
+        // wait, so up to poolSize lessons are in flight but no more than poolSize runs (one per
+        // pooled context) execute at once; the pool size alone sets the JavaScript concurrency.
+        ExecutorService workers = Executors.newFixedThreadPool(executor.getParallelism(), r -> {
+            Thread thread = new Thread(r, "content-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        List<Future<LessonReport>> futures = new ArrayList<>();
+        try {
+            for (Module module : contentLoader.getModules()) {
+                for (Lesson lesson : module.getLessons()) {
+                    futures.add(workers.submit(() -> verifyLesson(module, lesson, grader)));
+                }
+            }
+
+            Report report = new Report();
+            for (Future<LessonReport> future : futures) {
+                LessonReport lessonReport;
+                try {
+                    lessonReport = future.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("Verification crashed", e.getCause());
+                }
+                report.results.add(lessonReport);
+                switch (lessonReport.status) {
+                    case "PASS":
+                        report.passed++;
+                        break;
+                    case "FAIL":
+                        report.failed++;
+                        break;
+                    default:
+                        report.withoutChallenge++;
+                }
+            }
+            report.lessons = report.results.size();
+            report.totalMillis = (System.nanoTime() - start) / 1_000_000.0;
+            report.generatedAt = Instant.now().toString();
+            return report;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static LessonReport verifyLesson(Module module, Lesson lesson, ChallengeGrader grader) {
+        LessonReport lessonReport = new LessonReport();
+        lessonReport.lessonId = lesson.getId();
+        lessonReport.moduleId = module.getId();
+        lessonReport.title = lesson.getTitle();
+
+        Challenge challenge = lesson.getChallenge();
+        String solution = lesson.getSolution();
+        if (challenge == null || challenge.getTestCases() == null || challenge.getTestCases().isEmpty()
+                || solution == null || solution.isBlank()) {
+            lessonReport.status = "NO_CHALLENGE";
+            return lessonReport;
+        }
+
+        // The module's language decides how the app runs the lesson, so it decides here too
+        boolean typeScript = module.isTypeScript();
+        lessonReport.language = typeScript ? "typescript" : "javascript";
+        long start = System.nanoTime();
+        ChallengeGrader.GradingReport grading = grader.grade(solution, typeScript, challenge.getTestCases(), false);
+        for (ChallengeGrader.TestCaseResult caseResult : grading.getResults()) {
+            TestReport testReport = new TestReport();
+            testReport.description = caseResult.getTestCase().getDescription();
+            testReport.passed = caseResult.isPassed();
+            if (!testReport.passed) {
+                testReport.expected = caseResult.getTestCase().getExpectedOutput();
+                testReport.actual = caseResult.getResult().getOutput();
+                testReport.error = caseResult.getResult().getError();
+            }
+            lessonReport.tests.add(testReport);
+        }
+        lessonReport.millis = (System.nanoTime() - start) / 1_000_000.0;
+        lessonReport.status = grading.isAllPassed() ? "PASS" : "FAIL";
+        return lessonReport;
+    }
+}
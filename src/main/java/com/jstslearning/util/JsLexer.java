@@ -0,0 +1,512 @@
+package com.jstslearning.util;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass JavaScript/TypeScript lexer for highlighting. Characters are
+ * classified through a lookup table and keywords are found in an
+ * open-addressing word table without creating substrings; tokens go into
+ * scratch arrays that are reused from line to line, so lexing allocates
+ * nothing once the arrays have grown to the longest line.
+ *
+ * Lexing works a line at a time. Block comments, template literals and
+ * ${...} interpolations that continue onto the next line are carried over in
+ * the int state returned by lexLine().
+ */
+public class JsLexer {
+
+    // Token kinds; identifiers and whitespace produce no token
+    public static final byte KEYWORD = 1;
+    public static final byte BUILTIN = 2;
+    public static final byte PAREN = 3;
+    public static final byte BRACE = 4;
+    public static final byte BRACKET = 5;
+    public static final byte SEMICOLON = 6;
+    public static final byte STRING = 7;
+    public static final byte COMMENT = 8;
+    public static final byte NUMBER = 9;
+    public static final byte OPERATOR = 10;
+    public static final byte REGEX = 11;
+    public static final int KIND_COUNT = 12;
+
+    // State between lines: mode in bits 0-1, open interpolations in bits 2-4,
+    // then 4 bits of brace depth per interpolation, innermost first
+    public static final int STATE_CODE = 0;
+    private static final int MODE_CODE = 0;
+    private static final int MODE_BLOCK_COMMENT = 1;
+    private static final int MODE_TEMPLATE = 2;
+    private static final int MAX_INTERPOLATIONS = 6;
+    private static final int MAX_BRACE_DEPTH = 15;
+
+    // Character classes
+    private static final byte C_OTHER = 0;
+    private static final byte C_SPACE = 1;
+    private static final byte C_IDENT = 2;
+    private static final byte C_DIGIT = 3;
+    private static final byte C_QUOTE = 4; // ' and "
+    private static final byte C_BACKTICK = 5;
+    private static final byte C_SLASH = 6;
+    private static final byte C_PAREN = 7;
+    private static final byte C_BRACE = 8;
+    private static final byte C_BRACKET = 9;
+    private static final byte C_SEMICOLON = 10;
+    private static final byte C_OPERATOR = 11;
+    private static final byte C_DOT = 12;
+    private static final byte[] CHAR_CLASSES = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASSES[c] = C_IDENT;
+            CHAR_CLASSES[Character.toUpperCase(c)] = C_IDENT;
+        }
+        CHAR_CLASSES['_'] = C_IDENT;
+        CHAR_CLASSES['$'] = C_IDENT;
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CLASSES[c] = C_DIGIT;
+        }
+        for (char c : " \t\r\n\f\u000B".toCharArray()) {
+            CHAR_CLASSES[c] = C_SPACE;
+        }
+        CHAR_CLASSES['\''] = C_QUOTE;
+        CHAR_CLASSES['"'] = C_QUOTE;
+        CHAR_CLASSES['`'] = C_BACKTICK;
+        CHAR_CLASSES['/'] = C_SLASH;
+        CHAR_CLASSES['('] = C_PAREN;
+        CHAR_CLASSES[')'] = C_PAREN;
+        CHAR_CLASSES['{'] = C_BRACE;
+        CHAR_CLASSES['}'] = C_BRACE;
+        CHAR_CLASSES['['] = C_BRACKET;
+        CHAR_CLASSES[']'] = C_BRACKET;
+        CHAR_CLASSES[';'] = C_SEMICOLON;
+        for (char c : "+-*%=<>!&|^~?:".toCharArray()) {
+            CHAR_CLASSES[c] = C_OPERATOR;
+        }
+        CHAR_CLASSES['.'] = C_DOT;
+    }
+
+    // JavaScript/TypeScript keywords (ES2024 + TS 5.7)
+    private static final String[] KEYWORDS = new String[]{
+        "abstract", "accessor", "any", "as", "asserts", "async", "await", "bigint", "boolean",
+        "break", "case", "catch", "class", "const", "constructor", "continue", "debugger",
+        "declare", "default", "delete", "do", "else", "enum", "export", "extends", "false",
+        "finally", "for", "from", "function", "get", "global", "if", "implements", "import",
+        "in", "infer", "instanceof", "interface", "is", "keyof", "let", "module", "namespace",
+        "never", "new", "null", "number", "object", "of", "override", "package", "private",
+        "protected", "public", "readonly", "require", "return", "satisfies", "set", "static",
+        "string", "super", "switch", "symbol", "this", "throw", "true", "try", "type", "typeof",
+        "undefined", "unique", "unknown", "using", "var", "void", "while", "with", "yield"
+    };
+
+    // Built-in objects and common APIs
+    private static final String[] BUILTINS = new String[]{
+        "Array", "ArrayBuffer", "Boolean", "Date", "Error", "Function", "JSON", "Map",
+        "Math", "Number", "Object", "Promise", "Proxy", "RegExp", "Set", "String",
+        "Symbol", "WeakMap", "WeakSet", "console", "document", "window", "setTimeout",
+        "setInterval", "clearTimeout", "clearInterval", "fetch", "localStorage",
+        "sessionStorage", "parseInt", "parseFloat", "isNaN", "isFinite"
+    };
+
+    // Keywords after which a '/' divides instead of starting a regex literal
+    private static final String[] VALUE_KEYWORDS = {"this", "super", "true", "false", "null", "undefined"};
+
+    // Word table: open addressing over WORD_TABLE_SIZE slots (a power of two)
+    private static final int WORD_TABLE_SIZE = 512;
+    private static final String[] WORDS = new String[WORD_TABLE_SIZE];
+    private static final byte[] WORD_KINDS = new byte[WORD_TABLE_SIZE];
+    private static final boolean[] WORD_IS_VALUE = new boolean[WORD_TABLE_SIZE];
+
+    static {
+        for (String word : KEYWORDS) {
+            WORD_KINDS[insertWord(word)] = KEYWORD;
+        }
+        for (String word : BUILTINS) {
+            WORD_KINDS[insertWord(word)] = BUILTIN;
+        }
+        for (String word : VALUE_KEYWORDS) {
+            WORD_IS_VALUE[insertWord(word)] = true;
+        }
+    }
+
+    private static int insertWord(String word) {
+        int slot = hash(word, 0, word.length()) & (WORD_TABLE_SIZE - 1);
+        while (WORDS[slot] != null && !WORDS[slot].equals(word)) {
+            slot = (slot + 1) & (WORD_TABLE_SIZE - 1);
+        }
+        WORDS[slot] = word;
+        return slot;
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Slot of the word text[start, end) in the word table, or -1
+     */
+    private static int findWord(CharSequence text, int start, int end) {
+        int length = end - start;
+        int slot = hash(text, start, end) & (WORD_TABLE_SIZE - 1);
+        for (String word = WORDS[slot]; word != null; word = WORDS[slot]) {
+            if (word.length() == length && matches(word, text, start)) {
+                return slot;
+            }
+            slot = (slot + 1) & (WORD_TABLE_SIZE - 1);
+        }
+        return -1;
+    }
+
+    private static boolean matches(String word, CharSequence text, int start) {
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte classOf(char c) {
+        if (c < 128) {
+            return CHAR_CLASSES[c];
+        }
+        if (Character.isJavaIdentifierPart(c)) {
+            return C_IDENT;
+        }
+        return Character.isWhitespace(c) ? C_SPACE : C_OTHER;
+    }
+
+    // Tokens of the last lexed line, reused between lines
+    private byte[] kinds = new byte[64];
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int count;
+
+    // Lexer state while lexing a line
+    private int mode;
+    private int interpolations; // Open ${...} interpolations
+    private final int[] braceDepths = new int[MAX_INTERPOLATIONS]; // Unclosed '{' inside each interpolation
+    private boolean regexAllowed; // Whether a '/' here would start a regex literal
+    private int lineStart;
+
+    /**
+     * Lex one line (without its line break) starting in the given state, and
+     * return the state at its end. Tokens are then available through
+     * getTokenCount(), getKind(), getStart() and getEnd() until the next call.
+     */
+    public int lexLine(CharSequence line, int state) {
+        return lexLine(line, 0, line.length(), state);
+    }
+
+    /**
+     * Lex line[start, end) in place, e.g. one line of a whole document; token offsets index into line
+     */
+    public int lexLine(CharSequence line, int start, int end, int state) {
+        count = 0;
+        unpack(state);
+        regexAllowed = true;
+        lineStart = start;
+        int length = end; // Scanning bound; the helpers below stop here
+        int pos = start;
+        while (pos < length) {
+            switch (mode) {
+                case MODE_BLOCK_COMMENT:
+                    pos = lexBlockComment(line, pos, pos, length);
+                    break;
+                case MODE_TEMPLATE:
+                    pos = lexTemplate(line, pos, pos, length);
+                    break;
+                default:
+                    pos = lexCode(line, pos, length);
+                    break;
+            }
+        }
+        return pack();
+    }
+
+    /**
+     * Comment text up to and including the closing star-slash, or to the end of the line;
+     * its token starts at tokenStart (the opening slash-star, if on this line)
+     */
+    private int lexBlockComment(CharSequence line, int tokenStart, int pos, int length) {
+        int end = pos;
+        while (end < length && !(line.charAt(end) == '*' && end + 1 < length && line.charAt(end + 1) == '/')) {
+            end++;
+        }
+        if (end < length) {
+            end += 2;
+            mode = MODE_CODE;
+        }
+        add(COMMENT, tokenStart, end);
+        return end;
+    }
+
+    /**
+     * Template text up to the closing backtick, a ${ or the end of the line;
+     * its string token starts at tokenStart (the opening backtick, if on this line)
+     */
+    private int lexTemplate(CharSequence line, int tokenStart, int pos, int length) {
+        int end = pos;
+        while (end < length) {
+            char c = line.charAt(end);
+            if (c == '\\') {
+                end += 2;
+            } else if (c == '`') {
+                add(STRING, tokenStart, end + 1);
+                mode = MODE_CODE;
+                regexAllowed = false;
+                return end + 1;
+            } else if (c == '$' && end + 1 < length && line.charAt(end + 1) == '{'
+                    && interpolations < MAX_INTERPOLATIONS) {
+                add(STRING, tokenStart, end);
+                add(BRACE, end, end + 2);
+                braceDepths[interpolations++] = 0;
+                mode = MODE_CODE;
+                regexAllowed = true;
+                return end + 2;
+            } else {
+                end++;
+            }
+        }
+        end = Math.min(end, length);
+        add(STRING, tokenStart, end);
+        return end;
+    }
+
+    private int lexCode(CharSequence line, int pos, int length) {
+        char c = line.charAt(pos);
+        int end = pos + 1;
+        switch (classOf(c)) {
+            case C_SPACE:
+                while (end < length && classOf(line.charAt(end)) == C_SPACE) {
+                    end++;
+                }
+                return end;
+            case C_IDENT:
+                while (end < length) {
+                    byte next = classOf(line.charAt(end));
+                    if (next != C_IDENT && next != C_DIGIT) {
+                        break;
+                    }
+                    end++;
+                }
+                boolean member = pos > lineStart && line.charAt(pos - 1) == '.'; // obj.type is a property, not a keyword
+                int slot = member ? -1 : findWord(line, pos, end);
+                if (slot >= 0) {
+                    add(WORD_KINDS[slot], pos, end);
+                    regexAllowed = WORD_KINDS[slot] == KEYWORD && !WORD_IS_VALUE[slot];
+                } else {
+                    regexAllowed = false;
+                }
+                return end;
+            case C_DIGIT:
+                end = scanNumber(line, pos, length);
+                add(NUMBER, pos, end);
+                regexAllowed = false;
+                return end;
+            case C_DOT:
+                if (end < length && classOf(line.charAt(end)) == C_DIGIT) {
+                    end = scanNumber(line, pos, length);
+                    add(NUMBER, pos, end);
+                    regexAllowed = false;
+                    return end;
+                }
+                regexAllowed = true;
+                return end;
+            case C_QUOTE:
+                while (end < length && line.charAt(end) != c) {
+                    end += line.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, length);
+                add(STRING, pos, end);
+                regexAllowed = false;
+                return end;
+            case C_BACKTICK:
+                mode = MODE_TEMPLATE;
+                return lexTemplate(line, pos, end, length);
+            case C_SLASH:
+                return lexSlash(line, pos, length);
+            case C_PAREN:
+                add(PAREN, pos, end);
+                regexAllowed = c == '(';
+                return end;
+            case C_BRACKET:
+                add(BRACKET, pos, end);
+                regexAllowed = c == '[';
+                return end;
+            case C_BRACE:
+                if (interpolations > 0) {
+                    if (c == '{' && braceDepths[interpolations - 1] < MAX_BRACE_DEPTH) {
+                        braceDepths[interpolations - 1]++;
+                    } else if (c == '}' && braceDepths[interpolations - 1] > 0) {
+                        braceDepths[interpolations - 1]--;
+                    } else if (c == '}') {
+                        // Closes the ${...}: back to the template text
+                        interpolations--;
+                        add(BRACE, pos, end);
+                        mode = MODE_TEMPLATE;
+                        return end;
+                    }
+                }
+                add(BRACE, pos, end);
+                regexAllowed = true;
+                return end;
+            case C_SEMICOLON:
+                add(SEMICOLON, pos, end);
+                regexAllowed = true;
+                return end;
+            case C_OPERATOR:
+                while (end < length && classOf(line.charAt(end)) == C_OPERATOR) {
+                    end++;
+                }
+                add(OPERATOR, pos, end);
+                // Postfix ++/-- follow a value and leave one: in i++ / 2 the slash divides
+                boolean postfix = !regexAllowed && end - pos == 2 && (c == '+' || c == '-') && line.charAt(pos + 1) == c;
+                if (!postfix) {
+                    regexAllowed = true;
+                }
+                return end;
+            default:
+                regexAllowed = false;
+                return end;
+        }
+    }
+
+    private int lexSlash(CharSequence line, int pos, int length) {
+        int end = pos + 1;
+        if (end < length && line.charAt(end) == '/') {
+            add(COMMENT, pos, length);
+            return length;
+        }
+        if (end < length && line.charAt(end) == '*') {
+            mode = MODE_BLOCK_COMMENT;
+            // Scan after the opening pair, so its star cannot also close the comment
+            return lexBlockComment(line, pos, pos + 2, length);
+        }
+        if (regexAllowed) {
+            int regexEnd = scanRegex(line, end, length);
+            if (regexEnd > 0) {
+                add(REGEX, pos, regexEnd);
+                regexAllowed = false;
+                return regexEnd;
+            }
+        }
+        while (end < length && (classOf(line.charAt(end)) == C_OPERATOR)) {
+            end++;
+        }
+        add(OPERATOR, pos, end);
+        regexAllowed = true;
+        return end;
+    }
+
+    /**
+     * End of a regex literal whose body starts at pos (flags included), or -1 if it is not closed on this line
+     */
+    private static int scanRegex(CharSequence line, int pos, int length) {
+        boolean inClass = false;
+        for (int i = pos; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                if (i == pos) {
+                    return -1; // "//" is a comment, never an empty regex
+                }
+                int end = i + 1;
+                while (end < length && classOf(line.charAt(end)) == C_IDENT) {
+                    end++;
+                }
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decimal, hex/octal/binary, separators, exponents and the BigInt suffix
+     */
+    private static int scanNumber(CharSequence line, int pos, int length) {
+        int end = pos;
+        if (line.charAt(pos) == '0' && pos + 1 < length && "xXoObB".indexOf(line.charAt(pos + 1)) >= 0) {
+            end = pos + 2;
+            while (end < length && (Character.digit(line.charAt(end), 16) >= 0 || line.charAt(end) == '_')) {
+                end++;
+            }
+        } else {
+            while (end < length && (classOf(line.charAt(end)) == C_DIGIT || line.charAt(end) == '_'
+                    || line.charAt(end) == '.')) {
+                end++;
+            }
+            if (end < length && (line.charAt(end) == 'e' || line.charAt(end) == 'E')) {
+                int exponent = end + 1;
+                if (exponent < length && (line.charAt(exponent) == '+' || line.charAt(exponent) == '-')) {
+                    exponent++;
+                }
+                if (exponent < length && classOf(line.charAt(exponent)) == C_DIGIT) {
+                    end = exponent;
+                    while (end < length && (classOf(line.charAt(end)) == C_DIGIT || line.charAt(end) == '_')) {
+                        end++;
+                    }
+                }
+            }
+        }
+        if (end < length && line.charAt(end) == 'n') {
+            end++;
+        }
+        return end;
+    }
+
+    private void add(byte kind, int start, int end) {
+        if (end <= start) {
+            return;
+        }
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        kinds[count] = kind;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private void unpack(int state) {
+        mode = state & 3;
+        interpolations = Math.min((state >>> 2) & 7, MAX_INTERPOLATIONS);
+        for (int i = 0; i < interpolations; i++) {
+            braceDepths[i] = (state >>> (5 + 4 * i)) & MAX_BRACE_DEPTH;
+        }
+    }
+
+    private int pack() {
+        int state = mode | interpolations << 2;
+        for (int i = 0; i < interpolations; i++) {
+            state |= braceDepths[i] << (5 + 4 * i);
+        }
+        return state;
+    }
+
+    public int getTokenCount() {
+        return count;
+    }
+
+    public byte getKind(int token) {
+        return kinds[token];
+    }
+
+    public int getStart(int token) {
+        return starts[token];
+    }
+
+    public int getEnd(int token) {
+        return ends[token];
+    }
+}
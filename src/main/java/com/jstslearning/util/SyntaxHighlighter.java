@@ -2,14 +2,16 @@ package com.jstslearning.util;
 
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
+import org.fxmisc.richtext.model.PlainTextChange;
 import org.fxmisc.richtext.model.StyleSpans;
 import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.fxmisc.richtext.model.TwoDimensional;
 
-import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 /**
  * Syntax highlighter for JavaScript and TypeScript code
@@ -17,94 +19,187 @@ import java.util.regex.Pattern;
  */
 public class SyntaxHighlighter {
 
-    // JavaScript/TypeScript keywords (ES2024 + TS 5.7)
-    private static final String[] KEYWORDS = new String[]{
-        "abstract", "any", "as", "async", "await", "boolean", "break", "case", "catch",
-        "class", "const", "continue", "debugger", "declare", "default", "delete", "do",
-        "else", "enum", "export", "extends", "false", "finally", "for", "from", "function",
-        "get", "if", "implements", "import", "in", "infer", "instanceof", "interface",
-        "is", "keyof", "let", "module", "namespace", "never", "new", "null", "number",
-        "of", "package", "private", "protected", "public", "readonly", "require", "return",
-        "set", "static", "string", "super", "switch", "symbol", "this", "throw", "true",
-        "try", "type", "typeof", "undefined", "unknown", "var", "void", "while", "with",
-        "yield"
-    };
-
-    // Built-in objects and common APIs
-    private static final String[] BUILTINS = new String[]{
-        "Array", "ArrayBuffer", "Boolean", "Date", "Error", "Function", "JSON", "Map",
-        "Math", "Number", "Object", "Promise", "Proxy", "RegExp", "Set", "String",
-        "Symbol", "WeakMap", "WeakSet", "console", "document", "window", "setTimeout",
-        "setInterval", "clearTimeout", "clearInterval", "fetch", "localStorage",
-        "sessionStorage", "parseInt", "parseFloat", "isNaN", "isFinite"
-    };
-
-    private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
-    private static final String BUILTIN_PATTERN = "\\b(" + String.join("|", BUILTINS) + ")\\b";
-    private static final String PAREN_PATTERN = "[()]";
-    private static final String BRACE_PATTERN = "[{}]";
-    private static final String BRACKET_PATTERN = "[\\[\\]]";
-    private static final String SEMICOLON_PATTERN = ";";
-    private static final String STRING_PATTERN = "\"([^\"\\\\]|\\\\.)*\"|'([^'\\\\]|\\\\.)*'|`([^`\\\\]|\\\\.)*`";
-    private static final String COMMENT_PATTERN = "//[^\n]*" + "|" + "/\\*(.|\\R)*?\\*/";
-    private static final String NUMBER_PATTERN = "\\b\\d+\\.?\\d*\\b";
-    private static final String OPERATOR_PATTERN = "[+\\-*/%=<>!&|^~?:]+";
-
-    private static final Pattern PATTERN = Pattern.compile(
-            "(?<KEYWORD>" + KEYWORD_PATTERN + ")"
-            + "|(?<BUILTIN>" + BUILTIN_PATTERN + ")"
-            + "|(?<PAREN>" + PAREN_PATTERN + ")"
-            + "|(?<BRACE>" + BRACE_PATTERN + ")"
-            + "|(?<BRACKET>" + BRACKET_PATTERN + ")"
-            + "|(?<SEMICOLON>" + SEMICOLON_PATTERN + ")"
-            + "|(?<STRING>" + STRING_PATTERN + ")"
-            + "|(?<COMMENT>" + COMMENT_PATTERN + ")"
-            + "|(?<NUMBER>" + NUMBER_PATTERN + ")"
-            + "|(?<OPERATOR>" + OPERATOR_PATTERN + ")"
-    );
+    // Style class per JsLexer token kind
+    private static final List<Collection<String>> STYLES = new ArrayList<>();
+
+    static {
+        String[] names = {null, "keyword", "builtin", "paren", "brace", "bracket", "semicolon",
+                "string", "comment", "number", "operator", "regex"};
+        for (int kind = 0; kind < JsLexer.KIND_COUNT; kind++) {
+            STYLES.add(names[kind] != null ? Collections.singleton(names[kind]) : Collections.emptyList());
+        }
+    }
+
+    private static final int STATE_UNKNOWN = -1; // Line not lexed since it was edited
 
     /**
-     * Apply syntax highlighting to a CodeArea
+     * Styles to apply from the start of a paragraph onward, one line break between paragraphs
+     */
+    static class Restyle {
+        private final int firstParagraph;
+        private final StyleSpans<Collection<String>> spans;
+
+        Restyle(int firstParagraph, StyleSpans<Collection<String>> spans) {
+            this.firstParagraph = firstParagraph;
+            this.spans = spans;
+        }
+
+        int getFirstParagraph() {
+            return firstParagraph;
+        }
+
+        StyleSpans<Collection<String>> getSpans() {
+            return spans;
+        }
+    }
+
+    /**
+     * The lexer state at the end of each paragraph, kept in step with edits so
+     * that an edit re-lexes only the paragraphs it touched, plus following ones
+     * whose starting state changed (e.g. after typing an opening comment).
+     * Works on the paragraphs' text alone; the caller applies the Restyle.
+     */
+    static class LineStates {
+        private final List<Integer> endStates = new ArrayList<>(); // Paragraph -> lexer state after it
+        private final JsLexer lexer = new JsLexer(); // Scratch buffers reused for every line
+
+        /**
+         * Forget every state and style the whole document
+         */
+        Restyle highlightAll(List<String> paragraphs) {
+            endStates.clear();
+            endStates.addAll(Collections.nCopies(paragraphs.size(), STATE_UNKNOWN));
+            return highlight(paragraphs, 0, endStates.size() - 1);
+        }
+
+        /**
+         * Follow an edit that replaced removed with inserted, starting in paragraph
+         * first: keep one end state per paragraph across it, then re-lex from that
+         * paragraph. paragraphs is the text after the edit.
+         */
+        Restyle edit(List<String> paragraphs, int first, String removed, String inserted) {
+            int removedLines = countLineBreaks(removed);
+            int insertedLines = countLineBreaks(inserted);
+            if (first + removedLines >= endStates.size()) {
+                return highlightAll(paragraphs); // Out of step with the document; start over
+            }
+            endStates.subList(first, first + removedLines + 1).clear();
+            endStates.addAll(first, Collections.nCopies(insertedLines + 1, STATE_UNKNOWN));
+            if (endStates.size() != paragraphs.size()) {
+                return highlightAll(paragraphs);
+            }
+            return highlight(paragraphs, first, first + insertedLines);
+        }
+
+        /**
+         * Re-lex paragraphs first..lastEdited, then onward until a paragraph ends
+         * in the same state as before; the styles cover only those paragraphs
+         */
+        private Restyle highlight(List<String> paragraphs, int first, int lastEdited) {
+            int count = endStates.size();
+            int state = first > 0 ? endStates.get(first - 1) : JsLexer.STATE_CODE;
+            StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+            for (int p = first; p < count; p++) {
+                String line = paragraphs.get(p);
+                state = highlightLine(lexer, line, 0, line.length(), state, spansBuilder);
+                if (p < count - 1) {
+                    spansBuilder.add(Collections.emptyList(), 1); // Line break
+                }
+                int previous = endStates.set(p, state);
+                if (p >= lastEdited && previous == state) {
+                    break; // Later lines start in the same state as before, so their styles still hold
+                }
+            }
+            return new Restyle(first, spansBuilder.create());
+        }
+    }
+
+    private final CodeArea codeArea;
+    private final List<String> paragraphs; // Live view of the paragraphs' text
+    private final LineStates lineStates = new LineStates();
+
+    private SyntaxHighlighter(CodeArea codeArea) {
+        this.codeArea = codeArea;
+        this.paragraphs = new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return codeArea.getText(index);
+            }
+
+            @Override
+            public int size() {
+                return codeArea.getParagraphs().size();
+            }
+        };
+    }
+
+    /**
+     * Apply syntax highlighting to a CodeArea. Each edit re-lexes only the
+     * paragraphs it touched, plus following ones whose starting state changed
+     * (e.g. after typing an opening comment), and restyles just that range.
      */
     public static void applyHighlighting(CodeArea codeArea) {
         // Add line numbers
         codeArea.setParagraphGraphicFactory(LineNumberFactory.get(codeArea));
 
-        // Apply syntax highlighting on text changes
-        codeArea.multiPlainChanges()
-                .successionEnds(Duration.ofMillis(100))
-                .subscribe(ignore -> {
-                    codeArea.setStyleSpans(0, computeHighlighting(codeArea.getText()));
-                });
+        SyntaxHighlighter highlighter = new SyntaxHighlighter(codeArea);
+        highlighter.apply(highlighter.lineStates.highlightAll(highlighter.paragraphs));
+        codeArea.plainTextChanges().subscribe(highlighter::onChange);
+    }
+
+    private void onChange(PlainTextChange change) {
+        int first = codeArea.offsetToPosition(change.getPosition(), TwoDimensional.Bias.Forward).getMajor();
+        apply(lineStates.edit(paragraphs, first, change.getRemoved(), change.getInserted()));
+    }
+
+    private void apply(Restyle restyle) {
+        codeArea.setStyleSpans(codeArea.getAbsolutePosition(restyle.getFirstParagraph(), 0), restyle.getSpans());
+    }
+
+    private static int countLineBreaks(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
-     * Compute syntax highlighting spans for the given text
+     * Style spans for a whole text, lexed line by line
      */
-    private static StyleSpans<Collection<String>> computeHighlighting(String text) {
-        Matcher matcher = PATTERN.matcher(text);
-        int lastKwEnd = 0;
+    public static StyleSpans<Collection<String>> computeHighlighting(String text) {
+        JsLexer lexer = new JsLexer();
         StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
-
-        while (matcher.find()) {
-            String styleClass =
-                matcher.group("KEYWORD") != null ? "keyword" :
-                matcher.group("BUILTIN") != null ? "builtin" :
-                matcher.group("PAREN") != null ? "paren" :
-                matcher.group("BRACE") != null ? "brace" :
-                matcher.group("BRACKET") != null ? "bracket" :
-                matcher.group("SEMICOLON") != null ? "semicolon" :
-                matcher.group("STRING") != null ? "string" :
-                matcher.group("COMMENT") != null ? "comment" :
-                matcher.group("NUMBER") != null ? "number" :
-                matcher.group("OPERATOR") != null ? "operator" :
-                null; // Never happens
-
-            spansBuilder.add(Collections.emptyList(), matcher.start() - lastKwEnd);
-            spansBuilder.add(Collections.singleton(styleClass), matcher.end() - matcher.start());
-            lastKwEnd = matcher.end();
+        int state = JsLexer.STATE_CODE;
+        int lineStart = 0;
+        while (true) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            boolean last = lineEnd < 0;
+            state = highlightLine(lexer, text, lineStart, last ? text.length() : lineEnd, state, spansBuilder);
+            if (last) {
+                break;
+            }
+            spansBuilder.add(Collections.emptyList(), 1); // Line break
+            lineStart = lineEnd + 1;
         }
-        spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
         return spansBuilder.create();
     }
+
+    /**
+     * Add style spans for the line text[start, end) lexed from the given state; returns the state at its end
+     */
+    private static int highlightLine(JsLexer lexer, String text, int start, int end, int state,
+                                     StyleSpansBuilder<Collection<String>> spansBuilder) {
+        int endState = lexer.lexLine(text, start, end, state);
+        int lastKwEnd = start;
+        for (int token = 0; token < lexer.getTokenCount(); token++) {
+            spansBuilder.add(Collections.emptyList(), lexer.getStart(token) - lastKwEnd);
+            spansBuilder.add(STYLES.get(lexer.getKind(token)), lexer.getEnd(token) - lexer.getStart(token));
+            lastKwEnd = lexer.getEnd(token);
+        }
+        spansBuilder.add(Collections.emptyList(), end - lastKwEnd);
+        return endState;
+    }
 }
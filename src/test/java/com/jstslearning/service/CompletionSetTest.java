@@ -0,0 +1,67 @@
+package com.jstslearning.service;
+
+import com.jstslearning.model.Lesson;
+import com.jstslearning.model.Module;
+import com.jstslearning.model.UserProgress;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompletionSetTest {
+
+    private static Module module(int id, String... lessonIds) {
+        List<Lesson> lessons = new ArrayList<>();
+        for (String lessonId : lessonIds) {
+            Lesson lesson = new Lesson();
+            lesson.setId(lessonId);
+            lessons.add(lesson);
+        }
+        return new Module(id, "Module " + id, null, null, lessons);
+    }
+
+    @Test
+    void completeMarksProgressAndSet() {
+        ContentIndex index = new ContentIndex(List.of(module(1, "1.1", "1.2"), module(2, "2.1")));
+        UserProgress progress = new UserProgress("test");
+        CompletionSet completions = new CompletionSet(index, progress.getCompletedLessons());
+
+        assertTrue(completions.complete(progress, "1.2"));
+        assertFalse(completions.complete(progress, "1.2"));
+        assertTrue(progress.isLessonComplete("1.2"));
+        assertEquals(1, completions.getCompletedCount(1));
+        assertEquals(1, completions.getCompletedCount());
+    }
+
+    @Test
+    void rebindKeepsBitsWhileLessonsStayInPlace() {
+        CompletionSet completions = new CompletionSet(
+                new ContentIndex(List.of(module(1, "1.1", "1.2"), module(2, "2.1"))), List.of("1.2", "2.1"));
+
+        // Same lessons in the same order: the ids are not consulted
+        CompletionSet rebound = completions.rebind(
+                new ContentIndex(List.of(module(1, "1.1", "1.2"), module(2, "2.1"))), Set.of());
+        assertTrue(rebound.contains("1.2"));
+        assertTrue(rebound.contains(2, 0));
+        assertEquals(2, rebound.getCompletedCount());
+    }
+
+    @Test
+    void rebindRebuildsFromIdsWhenOrdinalsShift() {
+        CompletionSet completions = new CompletionSet(
+                new ContentIndex(List.of(module(1, "1.1", "1.2"), module(2, "2.1"))), List.of("1.2"));
+
+        // A lesson inserted at the front moves every ordinal after it
+        CompletionSet rebound = completions.rebind(
+                new ContentIndex(List.of(module(1, "1.0", "1.1", "1.2"), module(2, "2.1"))), Set.of("1.2"));
+        assertTrue(rebound.contains("1.2"));
+        assertFalse(rebound.contains("1.1"));
+        assertEquals(1, rebound.getCompletedCount(1));
+        assertEquals(4, rebound.getLessonCount());
+    }
+}
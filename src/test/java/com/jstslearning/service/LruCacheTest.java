@@ -0,0 +1,37 @@
+package com.jstslearning.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a"); // b is now the eldest
+        cache.put("c", 3);
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void computesOnceAndCountsLookups() {
+        LruCache<String, String> cache = new LruCache<>(4);
+        int[] computed = {0};
+        for (int i = 0; i < 3; i++) {
+            cache.get("k", () -> {
+                computed[0]++;
+                return "v";
+            });
+        }
+        assertEquals(1, computed[0]);
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
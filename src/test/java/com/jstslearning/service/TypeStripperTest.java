@@ -0,0 +1,106 @@
+package com.jstslearning.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TypeStripperTest {
+
+    // TypeScript input -> expected JavaScript; stripped syntax becomes spaces so offsets line up
+    private static final String[][] CASES = {
+        {"let age: number = 30;",
+         "let age         = 30;"},
+        {"const names: string[] = [];",
+         "const names           = [];"},
+        {"function add(a: number, b: number): number { return a + b; }",
+         "function add(a        , b        )         { return a + b; }"},
+        {"const f = (x: string): string => x;",
+         "const f = (x        )         => x;"},
+        {"function greet(name?: string) {}",
+         "function greet(name         ) {}"},
+        {"function id<T>(value: T): T { return value; }",
+         "function id   (value   )    { return value; }"},
+        {"const m = new Map<string, Array<number>>();",
+         "const m = new Map                       ();"},
+        {"interface User { name: string; age: number }\nlet u = 1;",
+         "                                            \nlet u = 1;"},
+        {"type Id = string | number;\nlet v = 2;",
+         "                          \nlet v = 2;"},
+        {"type Pair<A, B> = { first: A; second: B };",
+         "                                          "},
+        {"const n = value as number;",
+         "const n = value          ;"},
+        {"const c = { a: 1 } satisfies Config;",
+         "const c = { a: 1 }                 ;"},
+        {"const el = find(id)!;",
+         "const el = find(id) ;"},
+        {"class A { private x: number = 1; public get(): number { return this.x; } }",
+         "class A {         x         = 1;        get()         { return this.x; } }"},
+        {"class Q extends Base implements Shape { readonly id = 1; }",
+         "class Q extends Base                  {          id = 1; }"},
+        {"abstract class S { abstract area(): number; }",
+         "         class S {                          }"},
+        {"declare const VERSION: string;\nlet w = 3;",
+         "                              \nlet w = 3;"},
+        {"function over(x: string): void;\nfunction over(x: any) {}",
+         "                               \nfunction over(x     ) {}"},
+        {"if (a < b && c > d) { go(); }",
+         "if (a < b && c > d) { go(); }"},
+        {"const t = `sum: ${(x as number) + 1}`;",
+         "const t = `sum: ${(x          ) + 1}`;"},
+        {"const r = /a+b/g.test(s);",
+         "const r = /a+b/g.test(s);"},
+        {"let u: unknown;",
+         "let u         ;"},
+        {"const g = <T,>(x: T) => x;",
+         "const g =     (x   ) => x;"},
+        {"let fn: (a: number) => void = () => {};",
+         "let fn                      = () => {};"},
+        {"for (const k of keys as string[]) {}",
+         "for (const k of keys            ) {}"},
+        {"const h = cond ? (x) : y => y * 2;",
+         "const h = cond ? (x) : y => y * 2;"},
+        {"const k = cond ? (x): number => x : other;",
+         "const k = cond ? (x)         => x : other;"}
+    };
+
+    static Stream<String[]> cases() {
+        return Arrays.stream(CASES);
+    }
+
+    @ParameterizedTest
+    @MethodSource("cases")
+    void stripsTypesInPlace(String typeScript, String javaScript) {
+        assertEquals(javaScript, TypeStripper.strip(typeScript).getCode());
+    }
+
+    @Test
+    void parameterPropertiesAreAssignedInTheConstructor() {
+        String ts = "class P { constructor(private name: string) {} }";
+        TypeStripper.Result result = TypeStripper.strip(ts);
+        assertEquals("class P { constructor(        name        ) { this.name = name;} }", result.getCode());
+        // Code after the insertion still maps back to its TypeScript offset
+        assertEquals(ts.lastIndexOf('}'), result.toSourceOffset(result.getCode().lastIndexOf('}')));
+    }
+
+    @Test
+    void enumsBecomeReverseMappedObjects() {
+        String js = TypeStripper.strip("enum Color { Red, Green = 5, Blue }").getCode();
+        assertTrue(js.startsWith("var Color; (function (Color) { Color[Color[\"Red\"] = 0] = \"Red\"; "
+                + "Color[Color[\"Green\"] = 5] = \"Green\"; Color[Color[\"Blue\"] = 6] = \"Blue\"; "
+                + "})(Color || (Color = {}));"), js);
+    }
+
+    @Test
+    void deeplyNestedInputIsRejected() {
+        String code = "let x: number = " + "(".repeat(8000) + "1" + ")".repeat(8000) + ";";
+        assertThrows(IllegalArgumentException.class, () -> TypeStripper.strip(code));
+    }
+}
@@ -0,0 +1,136 @@
+package com.jstslearning.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsLexerTest {
+
+    private final JsLexer lexer = new JsLexer();
+
+    /**
+     * Tokens of the last lexed line as "kind:text"
+     */
+    private List<String> tokens(String line) {
+        List<String> tokens = new ArrayList<>();
+        for (int t = 0; t < lexer.getTokenCount(); t++) {
+            tokens.add(lexer.getKind(t) + ":" + line.substring(lexer.getStart(t), lexer.getEnd(t)));
+        }
+        return tokens;
+    }
+
+    @Test
+    void blockCommentNeedsItsOwnClosingPair() {
+        String line = "/*/ still a comment";
+        int state = lexer.lexLine(line, JsLexer.STATE_CODE);
+        assertEquals(List.of(JsLexer.COMMENT + ":" + line), tokens(line));
+        assertNotEquals(JsLexer.STATE_CODE, state);
+
+        String next = "done */ x = 1;";
+        assertEquals(JsLexer.STATE_CODE, lexer.lexLine(next, state));
+        assertEquals(JsLexer.COMMENT + ":done */", tokens(next).get(0));
+    }
+
+    @Test
+    void emptyBlockCommentCloses() {
+        String line = "/**/ x";
+        assertEquals(JsLexer.STATE_CODE, lexer.lexLine(line, JsLexer.STATE_CODE));
+        assertEquals(List.of(JsLexer.COMMENT + ":/**/"), tokens(line));
+    }
+
+    @Test
+    void slashAfterPostfixIncrementDivides() {
+        String line = "let r = i++ / 2 + j / 3;";
+        lexer.lexLine(line, JsLexer.STATE_CODE);
+        for (String token : tokens(line)) {
+            assertFalse(token.startsWith(JsLexer.REGEX + ":"), token);
+        }
+    }
+
+    @Test
+    void slashAfterBinaryOperatorStartsRegex() {
+        String line = "s = t + /a+/.source;";
+        lexer.lexLine(line, JsLexer.STATE_CODE);
+        assertTrue(tokens(line).contains(JsLexer.REGEX + ":/a+/"), tokens(line).toString());
+    }
+
+    // Known gap: the lexer does not track what a ')' closed, so in "if (x) /re/.test(s)" the
+    // slash after the condition is lexed as division rather than the start of a regex literal.
+    @Test
+    void slashAfterKeywordStartsRegex() {
+        String line = "return /a\\/b[/]/g;";
+        assertEquals(JsLexer.STATE_CODE, lexer.lexLine(line, JsLexer.STATE_CODE));
+        assertEquals(List.of(JsLexer.KEYWORD + ":return", JsLexer.REGEX + ":/a\\/b[/]/g",
+                JsLexer.SEMICOLON + ":;"), tokens(line));
+    }
+
+    @Test
+    void nestedTemplateInsideInterpolation() {
+        String line = "s = `a${b + `c${d}`}e`;";
+        assertEquals(JsLexer.STATE_CODE, lexer.lexLine(line, JsLexer.STATE_CODE));
+        assertEquals(List.of(
+                JsLexer.OPERATOR + ":=",
+                JsLexer.STRING + ":`a", JsLexer.BRACE + ":${",
+                JsLexer.OPERATOR + ":+",
+                JsLexer.STRING + ":`c", JsLexer.BRACE + ":${", JsLexer.BRACE + ":}", JsLexer.STRING + ":`",
+                JsLexer.BRACE + ":}", JsLexer.STRING + ":e`",
+                JsLexer.SEMICOLON + ":;"), tokens(line));
+    }
+
+    @Test
+    void braceInsideInterpolationDoesNotCloseIt() {
+        String line = "`${ {a: 1}.a } done`";
+        assertEquals(JsLexer.STATE_CODE, lexer.lexLine(line, JsLexer.STATE_CODE));
+        assertEquals(List.of(
+                JsLexer.STRING + ":`", JsLexer.BRACE + ":${",
+                JsLexer.BRACE + ":{", JsLexer.OPERATOR + "::", JsLexer.NUMBER + ":1", JsLexer.BRACE + ":}",
+                JsLexer.BRACE + ":}", JsLexer.STRING + ": done`"), tokens(line));
+    }
+
+    @Test
+    void interpolationContinuesOnNextLine() {
+        String first = "const s = `${";
+        int state = lexer.lexLine(first, JsLexer.STATE_CODE);
+        assertNotEquals(JsLexer.STATE_CODE, state);
+
+        // Back in code inside the ${...}: obj is an identifier, the '}' returns to the template
+        String second = "obj }`;";
+        assertEquals(JsLexer.STATE_CODE, lexer.lexLine(second, state));
+        assertEquals(List.of(JsLexer.BRACE + ":}", JsLexer.STRING + ":`", JsLexer.SEMICOLON + ":;"), tokens(second));
+    }
+
+    @Test
+    void templateTextContinuesOnNextLine() {
+        int state = lexer.lexLine("const s = `first", JsLexer.STATE_CODE);
+        assertNotEquals(JsLexer.STATE_CODE, state);
+
+        String second = "if (x) ${y}`";
+        assertEquals(JsLexer.STATE_CODE, lexer.lexLine(second, state));
+        assertEquals(List.of(JsLexer.STRING + ":if (x) ", JsLexer.BRACE + ":${", JsLexer.BRACE + ":}",
+                JsLexer.STRING + ":`"), tokens(second));
+    }
+
+    @Test
+    void typeScriptKeywords() {
+        String line = "type Id = string | number; x satisfies readonly unknown[]";
+        lexer.lexLine(line, JsLexer.STATE_CODE);
+        List<String> tokens = tokens(line);
+        for (String keyword : new String[]{"type", "string", "number", "satisfies", "readonly", "unknown"}) {
+            assertTrue(tokens.contains(JsLexer.KEYWORD + ":" + keyword), keyword + " in " + tokens);
+        }
+    }
+
+    @Test
+    void memberNamedLikeKeywordIsNotAKeyword() {
+        String line = "obj.type = node.interface + Math.number;";
+        lexer.lexLine(line, JsLexer.STATE_CODE);
+        assertEquals(List.of(JsLexer.OPERATOR + ":=", JsLexer.OPERATOR + ":+", JsLexer.BUILTIN + ":Math",
+                JsLexer.SEMICOLON + ":;"), tokens(line));
+    }
+}
@@ -0,0 +1,96 @@
+package com.jstslearning.util;
+
+import org.fxmisc.richtext.model.StyleSpan;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SyntaxHighlighterTest {
+
+    private final SyntaxHighlighter.LineStates lineStates = new SyntaxHighlighter.LineStates();
+    private String text;
+    private List<Collection<String>> styles; // Character -> style, as a CodeArea would hold them
+
+    @BeforeEach
+    void highlightDocument() {
+        text = String.join("\n",
+                "const a = 1;",
+                "let b = a / 2;",
+                "const s = `x ${a}`;",
+                "// done",
+                "let c = 3;");
+        styles = new ArrayList<>(Collections.nCopies(text.length(), Collections.emptyList()));
+        apply(lineStates.highlightAll(paragraphs()));
+        assertMatchesFullHighlighting();
+    }
+
+    @Test
+    void openingCommentMidDocumentRestylesFollowingLines() {
+        edit(text.indexOf("let b"), 0, "/* ");
+        assertMatchesFullHighlighting();
+    }
+
+    @Test
+    void closingCommentRestoresFollowingLines() {
+        edit(text.indexOf("let b"), 0, "/* ");
+        edit(text.indexOf("`;") + 2, 0, " */");
+        assertMatchesFullHighlighting();
+    }
+
+    @Test
+    void deletingLineBreakJoinsLines() {
+        edit(text.indexOf("// done") - 1, 1, "");
+        assertMatchesFullHighlighting();
+
+        // The comment now swallows the joined line, then splitting it again ends the comment
+        edit(text.indexOf("// done"), 0, "\n");
+        assertMatchesFullHighlighting();
+    }
+
+    /**
+     * Replace text[position, position + removed) like a CodeArea would (new
+     * characters start unstyled), then apply the incremental restyle
+     */
+    private void edit(int position, int removed, String inserted) {
+        String removedText = text.substring(position, position + removed);
+        text = text.substring(0, position) + inserted + text.substring(position + removed);
+        styles.subList(position, position + removed).clear();
+        styles.addAll(position, Collections.nCopies(inserted.length(), Collections.emptyList()));
+
+        int first = (int) text.substring(0, position).chars().filter(c -> c == '\n').count();
+        apply(lineStates.edit(paragraphs(), first, removedText, inserted));
+    }
+
+    private void apply(SyntaxHighlighter.Restyle restyle) {
+        int offset = 0;
+        for (int p = 0; p < restyle.getFirstParagraph(); p++) {
+            offset = text.indexOf('\n', offset) + 1;
+        }
+        for (StyleSpan<Collection<String>> span : restyle.getSpans()) {
+            for (int i = 0; i < span.getLength(); i++) {
+                styles.set(offset++, span.getStyle());
+            }
+        }
+    }
+
+    private List<String> paragraphs() {
+        return Arrays.asList(text.split("\n", -1));
+    }
+
+    private void assertMatchesFullHighlighting() {
+        List<Collection<String>> expected = new ArrayList<>();
+        StyleSpans<Collection<String>> spans = SyntaxHighlighter.computeHighlighting(text);
+        for (StyleSpan<Collection<String>> span : spans) {
+            expected.addAll(Collections.nCopies(span.getLength(), span.getStyle()));
+        }
+        assertEquals(expected, styles, text);
+    }
+}